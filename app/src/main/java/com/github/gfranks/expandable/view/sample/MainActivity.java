@@ -9,6 +9,7 @@ import android.view.MenuItem;
 import android.widget.ImageView;
 
 import com.github.gfranks.expandable.view.ExpandableView;
+import com.github.gfranks.expandable.view.FragmentContentHost;
 
 
 public class MainActivity extends ActionBarActivity implements ExpandableView.ExpandableViewListener {
@@ -29,25 +30,20 @@ public class MainActivity extends ActionBarActivity implements ExpandableView.Ex
         expandableView2.setExpandableViewListener(this);
         expandableView3.setExpandableViewListener(this);
         expandableView4.setExpandableViewListener(this);
-    }
+        // the fragment is detached while expandableView4 is collapsed and reattached before it expands
+        expandableView4.setContentHost(new FragmentContentHost(getSupportFragmentManager(), ContentFragment.TAG));
 
-    @Override
-    protected void onResume() {
-        super.onResume();
-        ContentFragment fragment = (ContentFragment) getSupportFragmentManager().findFragmentByTag(ContentFragment.TAG);
-        if (fragment == null) {
-            fragment = new ContentFragment();
+        if (savedInstanceState == null) {
             getSupportFragmentManager()
                     .beginTransaction()
-                    .replace(R.id.expandable_view_4_content, fragment, ContentFragment.TAG)
-                    .commit();
-        } else if (fragment.isDetached()) {
-            getSupportFragmentManager()
-                    .beginTransaction()
-                    .attach(fragment)
+                    .replace(R.id.expandable_view_4_content, new ContentFragment(), ContentFragment.TAG)
                     .commit();
         }
+    }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
         ExpandableView expandableView = (ExpandableView) findViewById(R.id.expandable_view);
         if (expandableView != null && !expandableView.isExpanded()) {
             ImageView indicator = (ImageView) expandableView.findViewById(R.id.expandable_footer_indicator);
@@ -67,6 +63,8 @@ public class MainActivity extends ActionBarActivity implements ExpandableView.Ex
 
         if (id == R.id.action_list) {
             startActivity(new Intent(this, ExpandableListActivity.class));
+        } else if (id == R.id.action_stress) {
+            startActivity(new Intent(this, StressActivity.class));
         }
 
         return super.onOptionsItemSelected(item);
@@ -0,0 +1,99 @@
+package com.github.gfranks.expandable.view.sample;
+
+import android.os.Bundle;
+import android.support.v7.app.ActionBarActivity;
+import android.support.v7.widget.Toolbar;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.github.gfranks.expandable.view.ChoreographerAnimationClock;
+import com.github.gfranks.expandable.view.ExpandableListView;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs a {@link StressScenario} over 10,000 rows, showing frame intervals and layout counts of each phase as it runs
+ * and writing the results to the app's external files directory when it completes
+ */
+public class StressActivity extends ActionBarActivity implements StressScenario.Listener {
+
+    private static final long READOUT_INTERVAL_MS = 250;
+    private static final String RESULTS_FILE_NAME = "stress-results.txt";
+
+    private StressScenario mScenario;
+    private TextView mReadout;
+    private Runnable mUpdateReadout = new Runnable() {
+        @Override
+        public void run() {
+            updateReadout();
+            if (mScenario.isRunning()) {
+                mReadout.postDelayed(this, READOUT_INTERVAL_MS);
+            }
+        }
+    };
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress);
+
+        Toolbar toolbar = (Toolbar) findViewById(R.id.activity_toolbar);
+        setSupportActionBar(toolbar);
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        mReadout = (TextView) findViewById(R.id.stress_readout);
+        ExpandableListView expandableListView = (ExpandableListView) findViewById(R.id.expandable_list_view);
+        mScenario = new StressScenario(expandableListView, StressScenario.DEFAULT_ROW_COUNT,
+                ChoreographerAnimationClock.getInstance(this));
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mScenario.stop();
+        mReadout.removeCallbacks(mUpdateReadout);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_stress, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == android.R.id.home) {
+            finish();
+        } else if (item.getItemId() == R.id.action_run_stress) {
+            mScenario.start(this);
+            mReadout.removeCallbacks(mUpdateReadout);
+            mReadout.post(mUpdateReadout);
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void updateReadout() {
+        StressResult result = mScenario.getResult();
+        mReadout.setText(result != null ? result.toString() : getString(R.string.stress_readout_idle));
+    }
+
+    @Override
+    public void onPhaseCompleted(StressScenario scenario, StressResult.Phase phase) {
+        updateReadout();
+    }
+
+    @Override
+    public void onScenarioCompleted(StressScenario scenario, StressResult result) {
+        File directory = getExternalFilesDir(null);
+        File file = new File(directory != null ? directory : getFilesDir(), RESULTS_FILE_NAME);
+        try {
+            result.writeTo(file);
+            Toast.makeText(this, getString(R.string.stress_results_written, file.getAbsolutePath()), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(this, R.string.stress_results_failed, Toast.LENGTH_LONG).show();
+        }
+    }
+}
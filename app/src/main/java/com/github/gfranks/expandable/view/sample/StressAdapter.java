@@ -0,0 +1,97 @@
+package com.github.gfranks.expandable.view.sample;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+/**
+ * Adapter of a large number of rows with three kinds of content (a short line, a long paragraph and a tall block),
+ * each recycled separately, counting how many rows it binds
+ */
+public class StressAdapter extends BaseAdapter {
+
+    static final int TYPE_SHORT_TEXT = 0;
+    static final int TYPE_LONG_TEXT = 1;
+    static final int TYPE_BLOCK = 2;
+    private static final int TYPE_COUNT = 3;
+
+    private static final int[] HEADER_COLORS = {R.color.theme_red, R.color.theme_blue, R.color.theme_green,
+            R.color.theme_yellow, R.color.theme_orange};
+
+    private final LayoutInflater mInflater;
+    private final int mRowCount;
+    private final String mLongText;
+    private int mBindCount;
+
+    public StressAdapter(Context context, int rowCount) {
+        mInflater = LayoutInflater.from(context);
+        mRowCount = rowCount;
+        mLongText = context.getString(R.string.expandable_view_content_text);
+    }
+
+    /**
+     * @return number of rows bound since the last reset
+     */
+    public int getBindCount() {
+        return mBindCount;
+    }
+
+    public void resetBindCount() {
+        mBindCount = 0;
+    }
+
+    @Override
+    public int getCount() {
+        return mRowCount;
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return position;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        // uneven mix, so rows of each kind end up next to each other as well as apart
+        return (position * 7 / 3) % TYPE_COUNT;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return TYPE_COUNT;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        mBindCount++;
+        final int viewType = getItemViewType(position);
+        View view = convertView;
+        if (view == null) {
+            view = mInflater.inflate(R.layout.layout_stress_item, parent, false);
+            view.findViewById(R.id.stress_item_block).setVisibility(viewType == TYPE_BLOCK ? View.VISIBLE : View.GONE);
+            view.findViewById(R.id.stress_item_text).setVisibility(viewType == TYPE_BLOCK ? View.GONE : View.VISIBLE);
+        }
+
+        TextView header = (TextView) view.findViewById(R.id.stress_item_header);
+        header.setText(parent.getContext().getString(R.string.stress_item_header, position));
+        header.setBackgroundColor(parent.getResources().getColor(HEADER_COLORS[position % HEADER_COLORS.length]));
+        if (viewType != TYPE_BLOCK) {
+            TextView text = (TextView) view.findViewById(R.id.stress_item_text);
+            text.setText(viewType == TYPE_LONG_TEXT ? mLongText : header.getText());
+        }
+        return view;
+    }
+}
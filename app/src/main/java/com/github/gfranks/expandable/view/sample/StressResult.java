@@ -0,0 +1,129 @@
+package com.github.gfranks.expandable.view.sample;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Frame intervals, layout passes and row binds recorded for each phase of a {@link StressScenario}
+ */
+public class StressResult {
+
+    /**
+     * Frames further apart than this are counted as janky (a frame and a half at 60Hz)
+     */
+    public static final long JANK_THRESHOLD_MS = 25;
+
+    private final List<Phase> mPhases = new ArrayList<Phase>();
+
+    Phase startPhase(String name) {
+        Phase phase = new Phase(name);
+        mPhases.add(phase);
+        return phase;
+    }
+
+    public List<Phase> getPhases() {
+        return mPhases;
+    }
+
+    /**
+     * @param file file to write the results to, as a tab separated table with a row per phase
+     * @throws IOException if the file can't be written
+     */
+    public void writeTo(File file) throws IOException {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("phase\tframes\tp50 ms\tp90 ms\tp99 ms\tmax ms\tjanky\tlayouts\tbinds\n");
+        for (Phase phase : mPhases) {
+            builder.append(phase).append('\n');
+        }
+        return builder.toString();
+    }
+
+    public static class Phase {
+
+        private final String mName;
+        private long[] mFrameIntervals = new long[64];
+        private int mFrameCount;
+        private int mLayoutCount;
+        private int mBindCount;
+
+        Phase(String name) {
+            mName = name;
+        }
+
+        void addFrame(long intervalMillis) {
+            if (mFrameCount == mFrameIntervals.length) {
+                mFrameIntervals = Arrays.copyOf(mFrameIntervals, mFrameCount * 2);
+            }
+            mFrameIntervals[mFrameCount++] = intervalMillis;
+        }
+
+        void addLayout() {
+            mLayoutCount++;
+        }
+
+        void setBindCount(int bindCount) {
+            mBindCount = bindCount;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public int getFrameCount() {
+            return mFrameCount;
+        }
+
+        public int getLayoutCount() {
+            return mLayoutCount;
+        }
+
+        public int getBindCount() {
+            return mBindCount;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the frame interval at the percentile, 0 if no frames were recorded
+         */
+        public long getFrameIntervalPercentile(int percentile) {
+            if (mFrameCount == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(mFrameIntervals, mFrameCount);
+            Arrays.sort(sorted);
+            return sorted[Math.min(mFrameCount - 1, mFrameCount * percentile / 100)];
+        }
+
+        public int getJankyFrameCount() {
+            int count = 0;
+            for (int i = 0; i < mFrameCount; i++) {
+                if (mFrameIntervals[i] > JANK_THRESHOLD_MS) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s\t%d\t%d\t%d\t%d\t%d\t%d\t%d\t%d", mName, mFrameCount,
+                    getFrameIntervalPercentile(50), getFrameIntervalPercentile(90), getFrameIntervalPercentile(99),
+                    getFrameIntervalPercentile(100), getJankyFrameCount(), mLayoutCount, mBindCount);
+        }
+    }
+}
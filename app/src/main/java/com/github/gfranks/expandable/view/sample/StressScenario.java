@@ -0,0 +1,210 @@
+package com.github.gfranks.expandable.view.sample;
+
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.github.gfranks.expandable.view.AnimationClock;
+import com.github.gfranks.expandable.view.ExpandableListView;
+import com.github.gfranks.expandable.view.ExpandableView;
+import com.github.gfranks.expandable.view.ExpansionStateModel;
+
+/**
+ * Scripted load on an ExpandableListView: rapid toggling of the rows on screen, expanding and collapsing every row at
+ * once, and flings in both directions. Each phase runs for a fixed number of frames of the given AnimationClock,
+ * recording frame intervals, layout passes and row binds into a {@link StressResult}.
+ * <p/>
+ * The scenario only needs the list to be attached to a window, so it may be run from {@link StressActivity} or
+ * headlessly (e.g. from a Robolectric test stepping a ManualAnimationClock) to compare numbers between library changes.
+ */
+public class StressScenario implements AnimationClock.FrameCallback {
+
+    public static final int DEFAULT_ROW_COUNT = 10000;
+
+    private static final Phase[] SCRIPT = {Phase.RAPID_TOGGLE, Phase.EXPAND_ALL, Phase.FLING, Phase.COLLAPSE_ALL, Phase.FLING};
+    private static final int TOGGLE_INTERVAL_FRAMES = 2;
+    private static final int FLING_INTERVAL_FRAMES = 40;
+    private static final int FLING_SCREENS = 8;
+    private static final int FLING_DURATION_MS = 500;
+
+    private final ExpandableListView mListView;
+    private final AnimationClock mClock;
+    private final StressAdapter mAdapter;
+    private final ExpansionStateModel mModel;
+    private Listener mListener;
+    private StressResult mResult;
+    private StressResult.Phase mResultPhase;
+    private int mPhaseIndex;
+    private int mPhaseFrame;
+    private long mLastFrameTimeMillis;
+    private boolean mIsRunning;
+    private ViewTreeObserver.OnGlobalLayoutListener mLayoutCounter = new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+            if (mResultPhase != null) {
+                mResultPhase.addLayout();
+            }
+        }
+    };
+
+    /**
+     * Sets an adapter of rowCount rows with mixed content on the list, whose expanded state is held in a model
+     *
+     * @param listView ExpandableListView to drive, must be attached to a window before {@link #start(Listener)}
+     * @param rowCount number of rows
+     * @param clock    AnimationClock whose frames drive (and are measured by) the scenario
+     */
+    public StressScenario(ExpandableListView listView, int rowCount, AnimationClock clock) {
+        mListView = listView;
+        mClock = clock;
+        mAdapter = new StressAdapter(listView.getContext(), rowCount);
+        mModel = new ExpansionStateModel(clock);
+        listView.setKeepViewsExpanded(true);
+        listView.setExpansionStateModel(mModel);
+        listView.setAdapter(mAdapter);
+    }
+
+    public boolean isRunning() {
+        return mIsRunning;
+    }
+
+    /**
+     * @return the results recorded so far, null if the scenario has not been started
+     */
+    public StressResult getResult() {
+        return mResult;
+    }
+
+    /**
+     * Collapses every row, scrolls to the top and starts the script on the next frame
+     *
+     * @param listener Listener that will receive a callback as each phase completes and once the script is done
+     */
+    public void start(Listener listener) {
+        stop();
+        mListener = listener;
+        mModel.clear();
+        mListView.setSelection(0);
+        mResult = new StressResult();
+        mPhaseIndex = 0;
+        startPhase();
+        mIsRunning = true;
+        mListView.getViewTreeObserver().addOnGlobalLayoutListener(mLayoutCounter);
+        mClock.postFrameCallback(this);
+    }
+
+    @SuppressWarnings("deprecation")
+    public void stop() {
+        if (!mIsRunning) {
+            return;
+        }
+
+        mIsRunning = false;
+        mResultPhase = null;
+        mClock.removeFrameCallback(this);
+        mListView.getViewTreeObserver().removeGlobalOnLayoutListener(mLayoutCounter);
+    }
+
+    private void startPhase() {
+        mPhaseFrame = 0;
+        mLastFrameTimeMillis = -1;
+        mAdapter.resetBindCount();
+        mResultPhase = mResult.startPhase(SCRIPT[mPhaseIndex].name().toLowerCase());
+    }
+
+    @Override
+    public void doFrame(long frameTimeMillis) {
+        if (!mIsRunning) {
+            return;
+        }
+
+        if (mLastFrameTimeMillis >= 0) {
+            mResultPhase.addFrame(frameTimeMillis - mLastFrameTimeMillis);
+        }
+        mLastFrameTimeMillis = frameTimeMillis;
+
+        Phase phase = SCRIPT[mPhaseIndex];
+        runPhaseFrame(phase, mPhaseFrame++);
+        if (mPhaseFrame < phase.mFrameCount) {
+            mClock.postFrameCallback(this);
+            return;
+        }
+
+        mResultPhase.setBindCount(mAdapter.getBindCount());
+        StressResult.Phase completedPhase = mResultPhase;
+        if (++mPhaseIndex < SCRIPT.length) {
+            startPhase();
+            mClock.postFrameCallback(this);
+        } else {
+            stop();
+        }
+
+        if (mListener != null) {
+            mListener.onPhaseCompleted(this, completedPhase);
+            if (!mIsRunning) {
+                mListener.onScenarioCompleted(this, mResult);
+            }
+        }
+    }
+
+    private void runPhaseFrame(Phase phase, int frame) {
+        switch (phase) {
+            case RAPID_TOGGLE:
+                if (frame % TOGGLE_INTERVAL_FRAMES == 0 && mListView.getChildCount() > 0) {
+                    View child = mListView.getChildAt((frame / TOGGLE_INTERVAL_FRAMES) % mListView.getChildCount());
+                    if (child instanceof ExpandableView && !((ExpandableView) child).isAnimating()) {
+                        ExpandableView expandableView = (ExpandableView) child;
+                        if (expandableView.isExpanded()) {
+                            expandableView.collapseContent();
+                        } else {
+                            expandableView.expandContent();
+                        }
+                    }
+                }
+                break;
+            case EXPAND_ALL:
+                if (frame == 0) {
+                    long[] keys = new long[mAdapter.getCount()];
+                    for (int position = 0; position < keys.length; position++) {
+                        keys[position] = mAdapter.getItemId(position);
+                    }
+                    mModel.setExpandedKeys(keys);
+                }
+                break;
+            case COLLAPSE_ALL:
+                if (frame == 0) {
+                    mModel.clear();
+                }
+                break;
+            case FLING:
+                if (frame % FLING_INTERVAL_FRAMES == 0) {
+                    final int direction = (frame / FLING_INTERVAL_FRAMES) % 2 == 0 ? 1 : -1;
+                    mListView.smoothScrollBy(direction * FLING_SCREENS * mListView.getHeight(), FLING_DURATION_MS);
+                }
+                break;
+        }
+    }
+
+    private enum Phase {
+        RAPID_TOGGLE(120), EXPAND_ALL(60), FLING(240), COLLAPSE_ALL(60);
+
+        final int mFrameCount;
+
+        Phase(int frameCount) {
+            mFrameCount = frameCount;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * @param scenario the running StressScenario
+         * @param phase    results of the phase that completed
+         */
+        void onPhaseCompleted(StressScenario scenario, StressResult.Phase phase);
+
+        /**
+         * @param scenario the completed StressScenario
+         * @param result   results of every phase
+         */
+        void onScenarioCompleted(StressScenario scenario, StressResult result);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.gfranks.expandable.view.sample;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.github.gfranks.expandable.view.ExpandableListView;
+import com.github.gfranks.expandable.view.ManualAnimationClock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the stress script headlessly and writes its results to build/stress-results.txt so they can be compared
+ * between library changes
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class StressScenarioTest {
+
+    private static final int MAX_FRAMES = 2000;
+
+    @Test
+    public void scenarioRecordsEveryPhase() throws IOException {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        ShadowLooper.pauseMainLooper();
+        FrameLayout root = new FrameLayout(activity);
+        activity.setContentView(root);
+        ExpandableListView listView = new ExpandableListView(activity);
+        root.addView(listView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+        ManualAnimationClock clock = new ManualAnimationClock();
+        StressScenario scenario = new StressScenario(listView, StressScenario.DEFAULT_ROW_COUNT, clock);
+        ShadowLooper.idleMainLooper(ManualAnimationClock.DEFAULT_FRAME_INTERVAL_MS);
+
+        scenario.start(null);
+        for (int frame = 0; frame < MAX_FRAMES && scenario.isRunning(); frame++) {
+            clock.advanceFrame();
+            ShadowLooper.idleMainLooper(clock.getFrameIntervalMillis());
+        }
+
+        assertFalse(scenario.isRunning());
+        StressResult result = scenario.getResult();
+        assertEquals(5, result.getPhases().size());
+        for (StressResult.Phase phase : result.getPhases()) {
+            assertTrue(phase.getFrameCount() > 0);
+        }
+        File file = new File("build", "stress-results.txt");
+        result.writeTo(file);
+        assertTrue(file.length() > 0);
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.gfranks.expandable.view.benchmark;
+
+import com.github.gfranks.expandable.view.ExpandedPositionSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expansion state store: lookup, toggle and saved state round trip, baselined against the List&lt;Integer&gt;
+ * ExpandableListView used before ExpandedPositionSet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpansionStateBenchmark {
+
+    /**
+     * Parcel writes an int type tag ahead of every boxed Integer written through writeList
+     */
+    private static final int PARCEL_VAL_INTEGER = 1;
+    private static final int LOOKUP_COUNT = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int itemCount;
+
+    /**
+     * Share of rows that are expanded
+     */
+    @Param({"0.01", "0.5"})
+    public float expandedRatio;
+
+    private List<Integer> mList;
+    private ExpandedPositionSet mSet;
+    private int[] mLookups;
+    private int mLookupIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        mList = new ArrayList<Integer>();
+        mSet = new ExpandedPositionSet();
+        for (int position = 0; position < itemCount; position++) {
+            if (random.nextFloat() < expandedRatio) {
+                mList.add(position);
+                mSet.add(position);
+            }
+        }
+
+        mLookups = new int[LOOKUP_COUNT];
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            mLookups[i] = random.nextInt(itemCount);
+        }
+    }
+
+    private int nextPosition() {
+        mLookupIndex = (mLookupIndex + 1) & (LOOKUP_COUNT - 1);
+        return mLookups[mLookupIndex];
+    }
+
+    @Benchmark
+    public boolean listLookup() {
+        return mList.contains(nextPosition());
+    }
+
+    @Benchmark
+    public boolean setLookup() {
+        return mSet.contains(nextPosition());
+    }
+
+    /**
+     * Mirrors ExpandableListView's willExpand/didCollapse bookkeeping, toggling twice to keep the state stable
+     */
+    @Benchmark
+    public int listToggle() {
+        Integer position = nextPosition();
+        for (int i = 0; i < 2; i++) {
+            if (!mList.remove(position)) {
+                mList.add(position);
+            }
+        }
+        return mList.size();
+    }
+
+    @Benchmark
+    public int setToggle() {
+        int position = nextPosition();
+        for (int i = 0; i < 2; i++) {
+            if (!mSet.remove(position)) {
+                mSet.add(position);
+            }
+        }
+        return mSet.size();
+    }
+
+    @Benchmark
+    public List<Integer> listRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(mList.size());
+        for (Integer position : mList) {
+            out.writeInt(PARCEL_VAL_INTEGER);
+            out.writeInt(position);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        int size = in.readInt();
+        List<Integer> restored = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            in.readInt();
+            restored.add(in.readInt());
+        }
+        return restored;
+    }
+
+    @Benchmark
+    public ExpandedPositionSet setRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        long[] words = mSet.toWords();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        long[] restored = new long[in.readInt()];
+        for (int i = 0; i < restored.length; i++) {
+            restored[i] = in.readLong();
+        }
+        return new ExpandedPositionSet(restored);
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.gfranks.expandable.view.benchmark;
+
+import com.github.gfranks.expandable.view.FlattenedTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Toggling a category (categories -> groups -> items) and resolving the rows of one screen afterwards, as done by
+ * ExpandableTreeView. The flattened index is compared against rebuilding the list of visible nodes on every toggle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlattenedTreeBenchmark {
+
+    private static final int CATEGORY_COUNT = 10;
+
+    @Param({"10", "100"})
+    public int groupsPerCategory;
+
+    @Param({"10", "1000"})
+    public int itemsPerGroup;
+
+    @Param({"12"})
+    public int visibleRows;
+
+    private int[] mSubtreeSizes;
+    private boolean[] mCollapsed;
+    private int[] mVisibleNodes;
+    private FlattenedTree mTree;
+    private int mToggledCategory;
+
+    @Setup
+    public void setUp() {
+        final int groupSize = 1 + itemsPerGroup;
+        final int categorySize = 1 + groupsPerCategory * groupSize;
+        mSubtreeSizes = new int[CATEGORY_COUNT * categorySize];
+        for (int category = 0; category < mSubtreeSizes.length; category += categorySize) {
+            mSubtreeSizes[category] = categorySize - 1;
+            for (int group = category + 1; group < category + categorySize; group += groupSize) {
+                mSubtreeSizes[group] = itemsPerGroup;
+            }
+        }
+
+        mCollapsed = new boolean[mSubtreeSizes.length];
+        mVisibleNodes = new int[mSubtreeSizes.length];
+        mTree = new FlattenedTree(mSubtreeSizes);
+    }
+
+    private int nextCategory() {
+        mToggledCategory = (mToggledCategory + 1) % CATEGORY_COUNT;
+        return mToggledCategory * (mSubtreeSizes.length / CATEGORY_COUNT);
+    }
+
+    @Benchmark
+    public int rebuildToggle() {
+        int category = nextCategory();
+        mCollapsed[category] = !mCollapsed[category];
+
+        // walk every node, skipping the subtrees of collapsed nodes
+        int visibleCount = 0;
+        for (int node = 0; node < mSubtreeSizes.length; node++) {
+            mVisibleNodes[visibleCount++] = node;
+            if (mCollapsed[node]) {
+                node += mSubtreeSizes[node];
+            }
+        }
+
+        int sum = 0;
+        int first = mCollapsed[category] ? 0 : visibleCount / 2;
+        for (int position = first; position < first + visibleRows; position++) {
+            sum += mVisibleNodes[position];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int flattenedToggle() {
+        int category = nextCategory();
+        if (mTree.isCollapsed(category)) {
+            mTree.expand(category);
+        } else {
+            mTree.collapse(category);
+        }
+
+        int sum = 0;
+        int first = mTree.isCollapsed(category) ? 0 : mTree.getVisibleCount() / 2;
+        for (int position = first; position < first + visibleRows; position++) {
+            sum += mTree.getNode(position);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.gfranks.expandable.view.benchmark;
+
+import com.github.gfranks.expandable.view.ExpandedPositionSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Position to state mapping as done by ExpandableListView#drawChild: every visible row resolves its expanded
+ * state on every frame, so the cost below is paid (visible rows x frames) times while scrolling.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionMappingBenchmark {
+
+    private static final int FRAME_COUNT = 64;
+
+    @Param({"1000", "100000", "1000000"})
+    public int itemCount;
+
+    @Param({"12"})
+    public int visibleRows;
+
+    @Param({"0.01", "0.5"})
+    public float expandedRatio;
+
+    private List<Integer> mList;
+    private ExpandedPositionSet mSet;
+    private int[] mFirstVisiblePositions;
+    private int mFrame;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        mList = new ArrayList<Integer>();
+        mSet = new ExpandedPositionSet();
+        for (int position = 0; position < itemCount; position++) {
+            if (random.nextFloat() < expandedRatio) {
+                mList.add(position);
+                mSet.add(position);
+            }
+        }
+
+        mFirstVisiblePositions = new int[FRAME_COUNT];
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            mFirstVisiblePositions[i] = random.nextInt(itemCount - visibleRows);
+        }
+    }
+
+    private int nextFirstVisiblePosition() {
+        mFrame = (mFrame + 1) & (FRAME_COUNT - 1);
+        return mFirstVisiblePositions[mFrame];
+    }
+
+    @Benchmark
+    public int listFrame() {
+        int first = nextFirstVisiblePosition();
+        int expanded = 0;
+        for (int position = first; position < first + visibleRows; position++) {
+            if (mList.contains(position)) {
+                expanded++;
+            }
+        }
+        return expanded;
+    }
+
+    @Benchmark
+    public int setFrame() {
+        int first = nextFirstVisiblePosition();
+        int expanded = 0;
+        for (int position = first; position < first + visibleRows; position++) {
+            if (mSet.contains(position)) {
+                expanded++;
+            }
+        }
+        return expanded;
+    }
+}
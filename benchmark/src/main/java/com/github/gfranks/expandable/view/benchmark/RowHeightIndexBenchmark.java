@@ -0,0 +1,84 @@
+package com.github.gfranks.expandable.view.benchmark;
+
+import com.github.gfranks.expandable.view.RowHeightIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expanding a row and then finding the scroll distance to another row and the scrollbar offset, as done by
+ * ExpandableListView#smoothScrollToPosition. The index is compared against summing the heights of every row above.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowHeightIndexBenchmark {
+
+    private static final int COLLAPSED_HEIGHT = 96;
+
+    @Param({"1000", "100000"})
+    public int rowCount;
+
+    private int[] mHeights;
+    private int[] mExtraHeights;
+    private boolean[] mExpanded;
+    private RowHeightIndex mIndex;
+    private Random mRandom;
+
+    @Setup
+    public void setUp() {
+        mRandom = new Random(0);
+        mHeights = new int[rowCount];
+        mExtraHeights = new int[rowCount];
+        mExpanded = new boolean[rowCount];
+        mIndex = new RowHeightIndex(rowCount, COLLAPSED_HEIGHT);
+        for (int row = 0; row < rowCount; row++) {
+            mHeights[row] = COLLAPSED_HEIGHT;
+            mExtraHeights[row] = 100 + mRandom.nextInt(900);
+            mIndex.setCollapsedHeight(row, COLLAPSED_HEIGHT);
+            mIndex.setExpandedExtraHeight(row, mExtraHeights[row]);
+        }
+    }
+
+    @Benchmark
+    public long linearScan() {
+        int toggled = mRandom.nextInt(rowCount);
+        mExpanded[toggled] = !mExpanded[toggled];
+        mHeights[toggled] = COLLAPSED_HEIGHT + (mExpanded[toggled] ? mExtraHeights[toggled] : 0);
+
+        int target = mRandom.nextInt(rowCount);
+        long offset = 0;
+        for (int row = 0; row < target; row++) {
+            offset += mHeights[row];
+        }
+        long total = offset;
+        for (int row = target; row < rowCount; row++) {
+            total += mHeights[row];
+        }
+        return offset + total;
+    }
+
+    @Benchmark
+    public long index() {
+        int toggled = mRandom.nextInt(rowCount);
+        mIndex.setExpanded(toggled, !mIndex.isExpanded(toggled));
+
+        int target = mRandom.nextInt(rowCount);
+        return mIndex.getOffset(target) + mIndex.getTotalHeight();
+    }
+}
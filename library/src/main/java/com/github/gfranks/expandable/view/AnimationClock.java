@@ -0,0 +1,37 @@
+package com.github.gfranks.expandable.view;
+
+/**
+ * Frame and time source driving expand/collapse animations.
+ * <p/>
+ * By default every ExpandableView shares {@link ChoreographerAnimationClock#getInstance(android.content.Context)},
+ * so transitions started together advance on the same display frames. A {@link ManualAnimationClock} may be set
+ * instead to step transitions deterministically in tests and benchmarks, or a custom clock to scale time for stress runs.
+ *
+ * @see ExpandableView#setAnimationClock(AnimationClock)
+ */
+public interface AnimationClock {
+
+    /**
+     * Schedules the callback to run once, on the next frame
+     *
+     * @param callback FrameCallback to run
+     */
+    void postFrameCallback(FrameCallback callback);
+
+    /**
+     * @param callback FrameCallback to remove if it has not run yet
+     */
+    void removeFrameCallback(FrameCallback callback);
+
+    /**
+     * @return multiplier applied to animation durations, 0 to skip straight to the end of every animation
+     */
+    float getDurationScale();
+
+    interface FrameCallback {
+        /**
+         * @param frameTimeMillis time of the frame in milliseconds, in the same time base for every frame of the clock
+         */
+        void doFrame(long frameTimeMillis);
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.gfranks.expandable.view;
+
+import android.annotation.TargetApi;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Default AnimationClock, running frame callbacks on the main thread's Choreographer (or on a Handler at the display
+ * refresh interval before API 16). Callbacks of every view using the shared instance run in the same frame, and
+ * durations are scaled by the system animator duration scale as ValueAnimator does.
+ * <p/>
+ * Must only be used from the main thread.
+ */
+public class ChoreographerAnimationClock implements AnimationClock {
+
+    private static final long FALLBACK_FRAME_INTERVAL_MS = 16;
+
+    private static ChoreographerAnimationClock sInstance;
+
+    private final ContentResolver mContentResolver;
+    private ArrayList<FrameCallback> mCallbacks = new ArrayList<FrameCallback>();
+    private ArrayList<FrameCallback> mRunningCallbacks = new ArrayList<FrameCallback>();
+    private boolean mIsFrameScheduled;
+    private Object mChoreographerCallback;
+    private Handler mHandler;
+    private Runnable mHandlerCallback;
+
+    /**
+     * @param context Context used to read the animator duration scale
+     * @return the instance shared by every ExpandableView that has not been given its own clock
+     */
+    public static ChoreographerAnimationClock getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ChoreographerAnimationClock(context);
+        }
+        return sInstance;
+    }
+
+    public ChoreographerAnimationClock(Context context) {
+        mContentResolver = context.getApplicationContext().getContentResolver();
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        if (!mCallbacks.contains(callback)) {
+            mCallbacks.add(callback);
+        }
+        if (!mIsFrameScheduled) {
+            mIsFrameScheduled = true;
+            scheduleFrame();
+        }
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        mCallbacks.remove(callback);
+        int index = mRunningCallbacks.indexOf(callback);
+        if (index >= 0) {
+            mRunningCallbacks.set(index, null);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public float getDurationScale() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return Settings.Global.getFloat(mContentResolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        }
+        return Settings.System.getFloat(mContentResolver, Settings.System.ANIMATOR_DURATION_SCALE, 1f);
+    }
+
+    private void doFrame(long frameTimeMillis) {
+        mIsFrameScheduled = false;
+        ArrayList<FrameCallback> callbacks = mCallbacks;
+        mCallbacks = mRunningCallbacks;
+        mRunningCallbacks = callbacks;
+        for (int i = 0; i < callbacks.size(); i++) {
+            FrameCallback callback = callbacks.get(i);
+            if (callback != null) {
+                callback.doFrame(frameTimeMillis);
+            }
+        }
+        callbacks.clear();
+    }
+
+    private void scheduleFrame() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            scheduleChoreographerFrame();
+            return;
+        }
+
+        if (mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
+            mHandlerCallback = new Runnable() {
+                @Override
+                public void run() {
+                    doFrame(SystemClock.uptimeMillis());
+                }
+            };
+        }
+        final long now = SystemClock.uptimeMillis();
+        mHandler.postAtTime(mHandlerCallback, now - now % FALLBACK_FRAME_INTERVAL_MS + FALLBACK_FRAME_INTERVAL_MS);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void scheduleChoreographerFrame() {
+        if (mChoreographerCallback == null) {
+            mChoreographerCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    ChoreographerAnimationClock.this.doFrame(frameTimeNanos / 1000000L);
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mChoreographerCallback);
+    }
+}
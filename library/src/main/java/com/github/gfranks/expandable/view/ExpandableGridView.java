@@ -0,0 +1,504 @@
+package com.github.gfranks.expandable.view;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.AdapterView;
+import android.widget.FrameLayout;
+import android.widget.GridView;
+import android.widget.ListAdapter;
+
+/**
+ * Grid of items that expands a single shared panel below the row of the tapped item, similar to what
+ * ExpandableListView does for single column lists.
+ * <p/>
+ * The panel is laid over the grid and revealed by clipping, while only the rows below it are moved down by
+ * translation, so expanding and collapsing does not lay out any of the grid's cells. The panel view is supplied by a
+ * {@link PanelAdapter} and reused for every tapped item.
+ */
+public class ExpandableGridView extends FrameLayout implements AdapterView.OnItemClickListener, AbsListView.OnScrollListener {
+
+    private static final int DEFAULT_ANIMATION_DURATION = 200;
+
+    private GridView mGridView;
+    private PanelLayout mPanel;
+    private View mPanelView;
+    private PanelAdapter mPanelAdapter;
+    private ExpandableGridViewListener mListener;
+    private AdapterView.OnItemClickListener mOnItemClickListener;
+    private AbsListView.OnScrollListener mOnScrollListener;
+    private long mAnimationDuration;
+    private int mExpandedPosition = AdapterView.INVALID_POSITION;
+    /**
+     * Position restored from a saved state, expanded once its row is laid out
+     */
+    private int mPendingExpandedPosition = AdapterView.INVALID_POSITION;
+    private int mPanelHeight;
+    /**
+     * Currently revealed height of the panel, which is also the translation of every row below it
+     */
+    private int mRevealHeight;
+    /**
+     * Gap between the expanded row and the row below it, used to place the panel once its row scrolls off screen
+     */
+    private int mRowSpacing;
+    private int mGridPaddingBottom;
+    private AnimationClock mAnimationClock;
+    private ExpansionAnimator mAnimator;
+
+    public ExpandableGridView(Context context) {
+        super(context);
+        mAnimationDuration = DEFAULT_ANIMATION_DURATION;
+        init(context, 1);
+    }
+
+    public ExpandableGridView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public ExpandableGridView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ExpandableGridView, defStyleAttr, 0);
+        mAnimationDuration = a.getInt(R.styleable.ExpandableGridView_ev_animationDuration, DEFAULT_ANIMATION_DURATION);
+        int numColumns = a.getInt(R.styleable.ExpandableGridView_ev_numColumns, 1);
+        a.recycle();
+
+        init(context, numColumns);
+    }
+
+    private void init(Context context, int numColumns) {
+        mGridView = new GridView(context);
+        mGridView.setNumColumns(numColumns);
+        mGridView.setOnItemClickListener(this);
+        mGridView.setOnScrollListener(this);
+        addView(mGridView, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+
+        mPanel = new PanelLayout(context);
+        mPanel.setVisibility(View.GONE);
+        addView(mPanel, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT));
+    }
+
+    /**
+     * Use the returned GridView to set the number of columns, spacing, selectors, etc. Item click and scroll
+     * listeners must be set on the ExpandableGridView
+     *
+     * @return the GridView displaying the items
+     */
+    public GridView getGridView() {
+        return mGridView;
+    }
+
+    /**
+     * @param adapter ListAdapter supplying the grid's items
+     */
+    public void setAdapter(ListAdapter adapter) {
+        collapsePanel(false);
+        mGridView.setAdapter(adapter);
+    }
+
+    public ListAdapter getAdapter() {
+        return mGridView.getAdapter();
+    }
+
+    /**
+     * @return the PanelAdapter supplying the expansion panel
+     * @see #setPanelAdapter(PanelAdapter)
+     */
+    public PanelAdapter getPanelAdapter() {
+        return mPanelAdapter;
+    }
+
+    /**
+     * @param panelAdapter PanelAdapter supplying the expansion panel shown below the row of a tapped item
+     */
+    public void setPanelAdapter(PanelAdapter panelAdapter) {
+        collapsePanel(false);
+        mPanelAdapter = panelAdapter;
+        mPanel.removeAllViews();
+        mPanelView = null;
+    }
+
+    /**
+     * @param listener ExpandableGridViewListener that will receive callbacks when the panel expands and collapses
+     */
+    public void setExpandableGridViewListener(ExpandableGridViewListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @param listener OnItemClickListener that will receive a callback after the panel is toggled for a tapped item
+     */
+    public void setOnItemClickListener(AdapterView.OnItemClickListener listener) {
+        mOnItemClickListener = listener;
+    }
+
+    /**
+     * @param listener OnScrollListener that will receive the grid's scroll callbacks
+     */
+    public void setOnScrollListener(AbsListView.OnScrollListener listener) {
+        mOnScrollListener = listener;
+    }
+
+    /**
+     * @return the set animation duration
+     * @see #setAnimationDuration(long)
+     */
+    public long getAnimationDuration() {
+        return mAnimationDuration;
+    }
+
+    /**
+     * @param animationDuration the duration in milliseconds of expanding and collapsing the panel
+     */
+    public void setAnimationDuration(long animationDuration) {
+        mAnimationDuration = animationDuration;
+    }
+
+    /**
+     * @return the AnimationClock driving the panel transitions
+     * @see ExpandableView#setAnimationClock(AnimationClock)
+     */
+    public AnimationClock getAnimationClock() {
+        if (mAnimationClock == null) {
+            mAnimationClock = ChoreographerAnimationClock.getInstance(getContext());
+        }
+        return mAnimationClock;
+    }
+
+    /**
+     * @param animationClock AnimationClock driving the panel transitions, null for the shared default
+     */
+    public void setAnimationClock(AnimationClock animationClock) {
+        mAnimationClock = animationClock;
+    }
+
+    /**
+     * @return the position of the item the panel is expanded for, {@link AdapterView#INVALID_POSITION} if collapsed
+     */
+    public int getExpandedPosition() {
+        return mExpandedPosition;
+    }
+
+    /**
+     * Expands the panel below the row of the item. If the panel is already expanded for another item in the same row,
+     * it is rebound in place, otherwise it is collapsed from its current row first
+     *
+     * @param position adapter position of an item that is on screen
+     * @param animate  boolean determining if the expansion should be animated
+     */
+    public void expandPanel(int position, boolean animate) {
+        if (mPanelAdapter == null || position == mExpandedPosition) {
+            return;
+        }
+
+        View anchorView = getChildForPosition(position);
+        if (anchorView == null) {
+            return;
+        }
+
+        final int previousPosition = mExpandedPosition;
+        if (previousPosition != AdapterView.INVALID_POSITION && getRow(previousPosition) != getRow(position)) {
+            collapsePanel(false);
+        }
+
+        bindPanel(position);
+        mPanel.measure(MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+        mPanelHeight = mPanel.getMeasuredHeight();
+        mExpandedPosition = position;
+
+        final boolean isNewRow = previousPosition == AdapterView.INVALID_POSITION || getRow(previousPosition) != getRow(position);
+        if (isNewRow) {
+            mRowSpacing = measureRowSpacing(position);
+            mGridPaddingBottom = mGridView.getPaddingBottom();
+            mGridView.setClipToPadding(false);
+            mPanel.setVisibility(View.VISIBLE);
+        }
+        // room to scroll the last rows into view below the panel, this is the only layout of the grid
+        mGridView.setPadding(mGridView.getPaddingLeft(), mGridView.getPaddingTop(), mGridView.getPaddingRight(),
+                mGridPaddingBottom + mPanelHeight);
+        if (isNewRow && mListener != null) {
+            mListener.willExpand(this, position);
+        }
+
+        animateRevealHeight(mPanelHeight, animate, new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (mListener != null && mExpandedPosition != AdapterView.INVALID_POSITION) {
+                    mListener.didExpand(ExpandableGridView.this, mExpandedPosition);
+                }
+            }
+        });
+    }
+
+    /**
+     * @param animate boolean determining if the collapse should be animated
+     */
+    public void collapsePanel(boolean animate) {
+        if (mExpandedPosition == AdapterView.INVALID_POSITION) {
+            return;
+        }
+
+        final int position = mExpandedPosition;
+        if (mListener != null) {
+            mListener.willCollapse(this, position);
+        }
+        mPendingExpandedPosition = AdapterView.INVALID_POSITION;
+        animateRevealHeight(0, animate, new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                mExpandedPosition = AdapterView.INVALID_POSITION;
+                mPanel.setVisibility(View.GONE);
+                mGridView.setPadding(mGridView.getPaddingLeft(), mGridView.getPaddingTop(),
+                        mGridView.getPaddingRight(), mGridPaddingBottom);
+                mGridView.setClipToPadding(true);
+                if (mListener != null) {
+                    mListener.didCollapse(ExpandableGridView.this, position);
+                }
+            }
+        });
+    }
+
+    private void bindPanel(int position) {
+        View panelView = mPanelAdapter.getPanelView(position, mPanelView, mPanel);
+        if (panelView != mPanelView) {
+            mPanel.removeAllViews();
+            mPanel.addView(panelView);
+            mPanelView = panelView;
+        }
+    }
+
+    private void animateRevealHeight(int toHeight, boolean animate, final Animator.AnimatorListener listener) {
+        if (mAnimator != null) {
+            // the running transition's end callbacks are replaced by the new transition's
+            ExpansionAnimator animator = mAnimator;
+            mAnimator = null;
+            animator.removeAllListeners();
+            animator.cancel();
+        }
+
+        if (!animate || mRevealHeight == toHeight) {
+            setRevealHeight(toHeight);
+            listener.onAnimationEnd(null);
+            return;
+        }
+
+        mAnimator = new ExpansionAnimator(getAnimationClock(), mRevealHeight, toHeight);
+        mAnimator.setDuration(mAnimationDuration);
+        mAnimator.setUpdateListener(new ExpansionAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ExpansionAnimator animation) {
+                setRevealHeight((int) animation.getAnimatedValue());
+            }
+        });
+        mAnimator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                mAnimator = null;
+                listener.onAnimationEnd(animation);
+            }
+        });
+        mAnimator.start();
+    }
+
+    private void setRevealHeight(int revealHeight) {
+        mRevealHeight = revealHeight;
+        mPanel.setRevealHeight(revealHeight);
+        updateRowTranslations();
+    }
+
+    /**
+     * Moves the rows below the expanded row down by the revealed height and places the panel below the expanded row.
+     * Called for every animation frame and scroll, none of which lay out the grid
+     */
+    private void updateRowTranslations() {
+        final boolean expanded = mExpandedPosition != AdapterView.INVALID_POSITION;
+        final int expandedRow = expanded ? getRow(mExpandedPosition) : -1;
+        final int firstPosition = mGridView.getFirstVisiblePosition();
+        int panelTop = Integer.MIN_VALUE;
+        for (int i = 0; i < mGridView.getChildCount(); i++) {
+            View child = mGridView.getChildAt(i);
+            final int row = getRow(firstPosition + i);
+            child.setTranslationY(expanded && row > expandedRow ? mRevealHeight : 0);
+            if (row == expandedRow) {
+                panelTop = Math.max(panelTop, child.getBottom());
+            } else if (row > expandedRow && panelTop == Integer.MIN_VALUE) {
+                // the expanded row has scrolled off the top
+                panelTop = child.getTop() - mRowSpacing;
+            }
+        }
+
+        if (expanded) {
+            mPanel.setTranslationY(mGridView.getTop() + (panelTop != Integer.MIN_VALUE ? panelTop : mGridView.getHeight()));
+        }
+    }
+
+    private int measureRowSpacing(int position) {
+        View anchorView = getChildForPosition(position);
+        View nextRowView = getChildForPosition(position - position % mGridView.getNumColumns() + mGridView.getNumColumns());
+        return anchorView != null && nextRowView != null ? nextRowView.getTop() - anchorView.getBottom() : 0;
+    }
+
+    private View getChildForPosition(int position) {
+        final int index = position - mGridView.getFirstVisiblePosition();
+        return index >= 0 && index < mGridView.getChildCount() ? mGridView.getChildAt(index) : null;
+    }
+
+    private int getRow(int position) {
+        return position / Math.max(1, mGridView.getNumColumns());
+    }
+
+    @Override
+    public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+        if (position == mExpandedPosition) {
+            collapsePanel(true);
+        } else {
+            expandPanel(position, true);
+        }
+        if (mOnItemClickListener != null) {
+            mOnItemClickListener.onItemClick(parent, view, position, id);
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+        if (mOnScrollListener != null) {
+            mOnScrollListener.onScrollStateChanged(view, scrollState);
+        }
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        if (mPendingExpandedPosition != AdapterView.INVALID_POSITION && getChildForPosition(mPendingExpandedPosition) != null) {
+            final int position = mPendingExpandedPosition;
+            mPendingExpandedPosition = AdapterView.INVALID_POSITION;
+            expandPanel(position, false);
+        } else if (mExpandedPosition != AdapterView.INVALID_POSITION) {
+            // recycled cells must pick up (or drop) the translation of the row they are now showing
+            updateRowTranslations();
+        }
+
+        if (mOnScrollListener != null) {
+            mOnScrollListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mAnimator != null) {
+            mAnimator.end();
+        }
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        Parcelable superState = super.onSaveInstanceState();
+        SavedState ss = new SavedState(superState);
+        ss.mExpandedPosition = mExpandedPosition != AdapterView.INVALID_POSITION ? mExpandedPosition : mPendingExpandedPosition;
+        return ss;
+    }
+
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
+        mPendingExpandedPosition = ss.mExpandedPosition;
+    }
+
+    public interface PanelAdapter {
+        /**
+         * @param position    adapter position of the tapped item
+         * @param convertView the panel view previously returned, to be rebound if possible
+         * @param parent      the panel container
+         * @return the panel view for the item
+         */
+        View getPanelView(int position, View convertView, ViewGroup parent);
+    }
+
+    public interface ExpandableGridViewListener {
+        void willExpand(ExpandableGridView gridView, int position);
+
+        void willCollapse(ExpandableGridView gridView, int position);
+
+        void didExpand(ExpandableGridView gridView, int position);
+
+        void didCollapse(ExpandableGridView gridView, int position);
+    }
+
+    /**
+     * Panel container that only draws and accepts touches within its revealed height
+     */
+    private static class PanelLayout extends FrameLayout {
+
+        private int mRevealHeight;
+
+        PanelLayout(Context context) {
+            super(context);
+        }
+
+        void setRevealHeight(int revealHeight) {
+            mRevealHeight = revealHeight;
+            invalidate();
+        }
+
+        @Override
+        protected void dispatchDraw(@NonNull Canvas canvas) {
+            canvas.save();
+            canvas.clipRect(0, 0, getWidth(), mRevealHeight);
+            super.dispatchDraw(canvas);
+            canvas.restore();
+        }
+
+        @Override
+        public boolean dispatchTouchEvent(@NonNull MotionEvent ev) {
+            if (ev.getActionMasked() == MotionEvent.ACTION_DOWN && ev.getY() > mRevealHeight) {
+                return false;
+            }
+            return super.dispatchTouchEvent(ev);
+        }
+    }
+
+    static class SavedState extends BaseSavedState {
+        public static final Parcelable.Creator<SavedState> CREATOR =
+                new Parcelable.Creator<SavedState>() {
+                    @Override
+                    public SavedState createFromParcel(Parcel in) {
+                        return new SavedState(in);
+                    }
+
+                    @Override
+                    public SavedState[] newArray(int size) {
+                        return new SavedState[size];
+                    }
+                };
+
+        int mExpandedPosition;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            mExpandedPosition = in.readInt();
+        }
+
+        @Override
+        public void writeToParcel(@NonNull Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(mExpandedPosition);
+        }
+    }
+}
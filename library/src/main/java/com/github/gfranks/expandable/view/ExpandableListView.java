@@ -2,26 +2,181 @@ package com.github.gfranks.expandable.view;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.database.DataSetObserver;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.NonNull;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.AnimationUtils;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.HeaderViewListAdapter;
+import android.widget.ListAdapter;
 import android.widget.ListView;
+import android.widget.WrapperListAdapter;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class ExpandableListView extends ListView implements ExpandableView.ExpandableViewListener {
 
+    /**
+     * Maximum number of idle content views kept per content view type
+     */
+    private static final int MAX_POOLED_CONTENT_VIEWS = 3;
+    /**
+     * Number of rows matched on the worker thread between each delivery of results to the main thread
+     */
+    private static final int FILTER_CHUNK_SIZE = 256;
+    private static final int SMOOTH_SCROLL_DURATION = 250;
+    /**
+     * Delivers filter results, View#post from another thread is lost while detached before API 24
+     */
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    /**
+     * Number of times a smooth scroll is corrected once it ends, as rows estimated when it started are laid out
+     */
+    private static final int MAX_SMOOTH_SCROLL_CORRECTIONS = 3;
+    private static final int SMOOTH_SCROLL_CORRECTION_DURATION = 100;
+
     private boolean mKeepViewsExpanded;
-    private List<Integer> mExpandedViews;
+    private boolean mStickyHeaders;
+    /**
+     * Drawing of the pinned row's header, redrawn only when a different row is pinned or the row is rebound
+     */
+    private Bitmap mStickyHeaderBitmap;
+    private int mStickyHeaderPosition = INVALID_POSITION;
+    /**
+     * Row whose header is currently pinned, null if no header is pinned
+     */
+    private ExpandableView mStickyExpandableView;
+    private Rect mStickyHeaderBounds = new Rect();
+    private Rect mStickyContentBounds = new Rect();
+    private boolean mIsStickyHeaderPressed;
+    private ExpandedPositionSet mExpandedViews;
     private ExpandableView.ExpandableViewListener mListener;
+    private MotionPolicy mMotionPolicy;
+    private ExpandableListAdapterWrapper mAdapterWrapper;
+    private RowMatcher mRowMatcher;
+    private OnFilterListener mFilterListener;
+    /**
+     * Incremented on the main thread for every query, so workers and results of stale queries stop early
+     */
+    private volatile int mFilterGeneration;
+    /**
+     * Sorted state keys of the rows expanded before the first query, restored when the query is cleared
+     */
+    private long[] mPreFilterExpandedKeys;
+    private int mFilterMatchCount;
+    /**
+     * File holding the expanded positions, also set as mExpandedViews, when set
+     */
+    private ExpansionStateFile mExpansionStateFile;
+    /**
+     * Model holding the expanded state instead of mExpandedViews when set
+     */
+    private ExpansionStateModel mExpansionStateModel;
+    /**
+     * Heights of every row (by list position, including header and footer views), recorded as rows are laid out
+     * and expanded. Created lazily, and its expanded state is rebuilt when stale
+     */
+    private RowHeightIndex mRowHeightIndex;
+    private boolean mIsRowHeightIndexStale;
+    /**
+     * Header and footer views added to the list, and the HeaderViewListAdapter returned by getAdapter() around the
+     * adapter passed to setAdapter(). ListView's own HeaderViewListAdapter wraps the adapter binding rows instead
+     */
+    private final ArrayList<FixedViewInfo> mHeaderViewInfos = new ArrayList<>();
+    private final ArrayList<FixedViewInfo> mFooterViewInfos = new ArrayList<>();
+    private HeaderViewListAdapter mHeaderViewAdapter;
+    /**
+     * Target of the running smooth scroll, corrected once the scroll ends. INVALID_POSITION if there is none
+     */
+    private int mSmoothScrollPosition = INVALID_POSITION;
+    private boolean mIsSmoothScrollAlignedToTop;
+    private int mSmoothScrollOffset;
+    private long mSmoothScrollEndTime;
+    private int mSmoothScrollCorrections;
+    private Runnable mSmoothScrollCorrection = new Runnable() {
+        @Override
+        public void run() {
+            correctSmoothScroll();
+        }
+    };
+    private ExpansionStateModel.Observer mExpansionStateObserver = new ExpansionStateModel.Observer() {
+        @Override
+        public void onExpansionStateChanged(ExpansionStateModel model, long[] changedKeys) {
+            if (mRowHeightIndex != null && !mIsRowHeightIndexStale) {
+                if (mAdapterWrapper != null && mAdapterWrapper.hasStableIds()) {
+                    // item ids can't be mapped back to positions
+                    mIsRowHeightIndexStale = true;
+                } else {
+                    for (long key : changedKeys) {
+                        setRowHeightIndexExpanded((int) key, model.isExpanded(key));
+                    }
+                }
+            }
+            // only rows on screen need to change, each reads its own key so the changed keys are not needed
+            applyExpandedStateToChildren(0, Integer.MAX_VALUE, isShown());
+        }
+    };
+    /**
+     * Layout pass counters, only allocated while layout pass debugging is enabled
+     */
+    private LayoutPassStats mLayoutPassStats;
+    private ExpandableView.OnLayoutPassListener mLayoutPassListener;
+    private boolean mIsDrawing;
+    /**
+     * Supplies content views borrowed from the shared pool when rows expand, null if every row carries its own content
+     */
+    private ContentViewAdapter mContentViewAdapter;
+    private SparseArray<ArrayList<View>> mContentViewPool;
+    private RecyclerListener mRecyclerListener;
+    private RecyclerListener mContentViewRecycler = new RecyclerListener() {
+        @Override
+        public void onMovedToScrapHeap(View view) {
+            ExpandableView expandableView = findExpandableView(view);
+            if (expandableView != null) {
+                // scrapped rows stay attached to the window, a running transition would continue on a row that is
+                // about to be bound to another position
+                expandableView.endTransitions();
+                if (mContentViewAdapter != null) {
+                    returnContentView(expandableView);
+                }
+            }
+            if (mRecyclerListener != null) {
+                mRecyclerListener.onMovedToScrapHeap(view);
+            }
+        }
+    };
+    private ExpandableView.ContentHost mContentViewPoolHost = new ExpandableView.ContentHost() {
+        @Override
+        public void onAttachContent(ExpandableView expandableView) {
+            borrowContentView(expandableView, expandableView.getId());
+        }
+
+        @Override
+        public void onReleaseContent(ExpandableView expandableView) {
+            returnContentView(expandableView);
+        }
+    };
 
     public ExpandableListView(Context context) {
         super(context);
-        mExpandedViews = new ArrayList<Integer>();
+        mExpandedViews = new ExpandedPositionSet();
+        mContentViewPool = new SparseArray<ArrayList<View>>();
+        super.setRecyclerListener(mContentViewRecycler);
     }
 
     public ExpandableListView(Context context, AttributeSet attrs) {
@@ -30,10 +185,13 @@ public class ExpandableListView extends ListView implements ExpandableView.Expan
 
     public ExpandableListView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        mExpandedViews = new ArrayList<Integer>();
+        mExpandedViews = new ExpandedPositionSet();
+        mContentViewPool = new SparseArray<ArrayList<View>>();
+        super.setRecyclerListener(mContentViewRecycler);
 
         TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ExpandableListView, defStyleAttr, 0);
         mKeepViewsExpanded = a.getBoolean(R.styleable.ExpandableListView_ev_keepViewsExpanded, false);
+        mStickyHeaders = a.getBoolean(R.styleable.ExpandableListView_ev_stickyHeaders, false);
         a.recycle();
     }
 
@@ -63,11 +221,752 @@ public class ExpandableListView extends ListView implements ExpandableView.Expan
         mKeepViewsExpanded = keepViewsExpanded;
     }
 
+    /**
+     * @return boolean determining if the header of an expanded row is pinned to the top while its content is on screen
+     * @see #setStickyHeaders(boolean)
+     */
+    public boolean isStickyHeaders() {
+        return mStickyHeaders;
+    }
+
+    /**
+     * The pinned header is drawn from a cached bitmap over the list rather than moved, so scrolling does not
+     * trigger any additional layout passes. Clicking the pinned header performs a click on the row's header
+     *
+     * @param stickyHeaders boolean determining if the header of an expanded row should be pinned to the top while
+     *                      its content is on screen
+     */
+    public void setStickyHeaders(boolean stickyHeaders) {
+        mStickyHeaders = stickyHeaders;
+        if (!stickyHeaders) {
+            clearStickyHeader();
+        }
+        invalidate();
+    }
+
+    /**
+     * @return the MotionPolicy set on every bound row, null if rows keep their own
+     * @see #setMotionPolicy(MotionPolicy)
+     */
+    public MotionPolicy getMotionPolicy() {
+        return mMotionPolicy;
+    }
+
+    /**
+     * Setting a single policy for every row lets it snap transitions when many rows toggle at once
+     * (e.g. when filtering or single expansion collapses other rows)
+     *
+     * @param motionPolicy MotionPolicy set on every bound row, null for rows to keep their own
+     * @see ExpandableView#setMotionPolicy(MotionPolicy)
+     */
+    public void setMotionPolicy(MotionPolicy motionPolicy) {
+        mMotionPolicy = motionPolicy;
+        invalidateViews();
+    }
+
+    /**
+     * @return the ContentViewAdapter supplying pooled content views
+     * @see #setContentViewAdapter(ContentViewAdapter)
+     */
+    public ContentViewAdapter getContentViewAdapter() {
+        return mContentViewAdapter;
+    }
+
+    /**
+     * Setting a ContentViewAdapter binds rows with only their header and footer. Each row's content view must be an
+     * empty ViewGroup (with a collapsed content height of 0) that a content view is borrowed into from a small
+     * pool, keyed by content view type, when the row expands. It is returned when the row collapses or is scrolled off
+     *
+     * @param contentViewAdapter ContentViewAdapter supplying content views, null for every row to carry its own
+     */
+    public void setContentViewAdapter(ContentViewAdapter contentViewAdapter) {
+        mContentViewAdapter = contentViewAdapter;
+        mContentViewPool.clear();
+        invalidateViews();
+    }
+
+    /**
+     * @param rowMatcher RowMatcher used by {@link #filterExpandedRows(CharSequence)} to match adapter items
+     */
+    public void setRowMatcher(RowMatcher rowMatcher) {
+        mRowMatcher = rowMatcher;
+    }
+
+    /**
+     * @param listener OnFilterListener that will receive a callback as results of each query are applied
+     */
+    public void setOnFilterListener(OnFilterListener listener) {
+        mFilterListener = listener;
+    }
+
+    /**
+     * Expands every row whose adapter item matches the query and collapses the rest, regardless of
+     * {@link #isKeepViewsExpanded()}. Items are matched by the {@link RowMatcher} on a worker thread and results are
+     * applied on the main thread in chunks as they stream in, each chunk updating the expanded state of all rows it
+     * covers at once and only changing the rows on screen. Calling this again cancels the previous query, so it may
+     * be called on every keystroke.
+     *
+     * @param query query to match, null or empty to cancel filtering and restore the rows expanded before filtering
+     */
+    public void filterExpandedRows(CharSequence query) {
+        final int generation = ++mFilterGeneration;
+        if (query == null || query.length() == 0) {
+            if (mPreFilterExpandedKeys != null) {
+                restoreExpandedKeys(mPreFilterExpandedKeys);
+                mPreFilterExpandedKeys = null;
+                applyExpandedStateToChildren(0, Integer.MAX_VALUE, false);
+            }
+            if (mFilterListener != null) {
+                mFilterListener.onFilterResults(this, query, 0, true);
+            }
+            return;
+        }
+        if (mRowMatcher == null || mAdapterWrapper == null) {
+            throw new IllegalStateException("A RowMatcher and adapter must be set before filtering");
+        }
+
+        if (mPreFilterExpandedKeys == null) {
+            mPreFilterExpandedKeys = getExpandedKeys();
+        }
+
+        // items are read on the main thread, only the matching happens on the worker
+        final Object[] items = new Object[mAdapterWrapper.getCount()];
+        for (int position = 0; position < items.length; position++) {
+            items[position] = mAdapterWrapper.getItem(position);
+        }
+        final RowMatcher rowMatcher = mRowMatcher;
+        final String queryString = query.toString();
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                int start = 0;
+                do {
+                    if (generation != mFilterGeneration) {
+                        return;
+                    }
+
+                    final int chunkStart = start;
+                    final int chunkEnd = Math.min(items.length, start + FILTER_CHUNK_SIZE);
+                    final boolean[] matches = new boolean[chunkEnd - chunkStart];
+                    for (int position = chunkStart; position < chunkEnd; position++) {
+                        matches[position - chunkStart] = rowMatcher.matches(items[position], queryString);
+                    }
+                    MAIN_HANDLER.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (generation == mFilterGeneration) {
+                                applyFilterChunk(queryString, chunkStart, chunkEnd, matches, chunkEnd == items.length);
+                            }
+                        }
+                    });
+                    start = chunkEnd;
+                } while (start < items.length);
+            }
+        });
+    }
+
+    private void applyFilterChunk(String query, int chunkStart, int chunkEnd, boolean[] matches, boolean complete) {
+        if (chunkStart == 0) {
+            mFilterMatchCount = 0;
+        }
+        for (int position = chunkStart; position < chunkEnd; position++) {
+            final boolean match = matches[position - chunkStart];
+            setPositionExpanded(position, match);
+            if (match) {
+                mFilterMatchCount++;
+            }
+        }
+        applyExpandedStateToChildren(chunkStart, chunkEnd, false);
+
+        if (mFilterListener != null) {
+            mFilterListener.onFilterResults(this, query, mFilterMatchCount, complete);
+        }
+    }
+
+    /**
+     * @return sorted state keys of every expanded row
+     */
+    private long[] getExpandedKeys() {
+        long[] keys;
+        if (mExpansionStateModel != null) {
+            keys = mExpansionStateModel.getExpandedKeys();
+        } else {
+            int[] positions = mExpandedViews.toArray();
+            keys = new long[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                keys[i] = positions[i];
+            }
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private void restoreExpandedKeys(long[] sortedKeys) {
+        mIsRowHeightIndexStale = true;
+        if (mExpansionStateModel != null) {
+            mExpansionStateModel.setExpandedKeys(sortedKeys);
+            return;
+        }
+
+        mExpandedViews.clear();
+        for (long key : sortedKeys) {
+            mExpandedViews.add((int) key);
+        }
+    }
+
+    /**
+     * @param position adapter position
+     * @return the key of the row in the ExpansionStateModel, its item id if the adapter has stable ids
+     */
+    private long getStateKey(int position) {
+        return mExpansionStateModel != null && mAdapterWrapper != null && mAdapterWrapper.hasStableIds()
+                ? mAdapterWrapper.getItemId(position) : position;
+    }
+
+    private boolean isPositionExpanded(int position) {
+        if (mExpansionStateModel != null) {
+            return mExpansionStateModel.isExpanded(getStateKey(position));
+        }
+        return mExpandedViews.contains(position);
+    }
+
+    private void setPositionExpanded(int position, boolean expanded) {
+        if (mExpansionStateModel != null) {
+            // the row height index follows the model's notification
+            mExpansionStateModel.setExpanded(getStateKey(position), expanded);
+            return;
+        }
+
+        if (expanded) {
+            mExpandedViews.add(position);
+        } else {
+            mExpandedViews.remove(position);
+        }
+        setRowHeightIndexExpanded(position, expanded);
+    }
+
+    /**
+     * @param position adapter position
+     */
+    private void setRowHeightIndexExpanded(int position, boolean expanded) {
+        final int listPosition = position + getHeaderViewsCount();
+        if (mRowHeightIndex != null && !mIsRowHeightIndexStale && listPosition < mRowHeightIndex.getRowCount()) {
+            mRowHeightIndex.setExpanded(listPosition, expanded);
+        }
+    }
+
+    /**
+     * @return the RowHeightIndex of every row in the list, with the expanded state of each row up to date
+     */
+    private RowHeightIndex getRowHeightIndex() {
+        final int count = getCount();
+        if (mRowHeightIndex == null || mRowHeightIndex.getRowCount() != count) {
+            mRowHeightIndex = new RowHeightIndex(count, getChildCount() > 0 ? getChildAt(0).getHeight() : 0);
+            mIsRowHeightIndexStale = true;
+        }
+
+        if (mIsRowHeightIndexStale) {
+            mIsRowHeightIndexStale = false;
+            final int headerCount = getHeaderViewsCount();
+            final int itemCount = mAdapterWrapper != null ? mAdapterWrapper.getCount() : 0;
+            for (int listPosition = 0; listPosition < count; listPosition++) {
+                final int position = listPosition - headerCount;
+                mRowHeightIndex.setExpanded(listPosition, position >= 0 && position < itemCount
+                        && isPositionExpanded(position));
+            }
+        }
+        return mRowHeightIndex;
+    }
+
+    /**
+     * Records the heights of every row on screen that isn't animating, so offsets of rows that have been seen are
+     * exact and rows that haven't are estimated from them
+     */
+    private void recordRowHeights() {
+        if (getChildCount() == 0) {
+            return;
+        }
+
+        RowHeightIndex rowHeightIndex = getRowHeightIndex();
+        final int firstPosition = getFirstVisiblePosition();
+        for (int i = 0; i < getChildCount(); i++) {
+            final int listPosition = firstPosition + i;
+            if (listPosition >= rowHeightIndex.getRowCount()) {
+                return;
+            }
+
+            View child = getChildAt(i);
+            ExpandableView expandableView = findExpandableView(child);
+            if (expandableView == null || expandableView.peekContentView() == null) {
+                rowHeightIndex.setCollapsedHeight(listPosition, child.getHeight());
+            } else if (!expandableView.isAnimating()) {
+                // a collapsed height larger than the content (short text) adds nothing when expanded
+                final int extraHeight = expandableView.isExpanded() ? Math.max(0,
+                        expandableView.peekContentView().getHeight() - expandableView.getCollapsedContentHeight()) : 0;
+                rowHeightIndex.setCollapsedHeight(listPosition, child.getHeight() - extraHeight);
+                if (expandableView.isExpanded()) {
+                    rowHeightIndex.setExpandedExtraHeight(listPosition, extraHeight);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return distance from the top of the first row to the top of the list's content area, estimated if rows above
+     * the first visible row have not been laid out
+     */
+    private long getRowScrollOffset() {
+        return getRowHeightIndex().getOffset(getFirstVisiblePosition()) + getPaddingTop() - getChildAt(0).getTop();
+    }
+
+    /**
+     * @param position   list position to scroll to
+     * @param alignToTop boolean determining if the row should be scrolled to topOffset, otherwise it is scrolled by
+     *                   as little as possible to be fully visible
+     * @param topOffset  distance from the top of the list's content area to leave above the row
+     * @return distance to scroll by, exact if the row is on screen
+     */
+    private int getScrollDistanceToPosition(int position, boolean alignToTop, int topOffset) {
+        RowHeightIndex rowHeightIndex = getRowHeightIndex();
+        position = Math.max(0, Math.min(position, rowHeightIndex.getRowCount() - 1));
+        final int childIndex = position - getFirstVisiblePosition();
+        final int rowTop;
+        final int rowHeight;
+        if (childIndex >= 0 && childIndex < getChildCount()) {
+            rowTop = getChildAt(childIndex).getTop();
+            rowHeight = getChildAt(childIndex).getHeight();
+        } else {
+            rowTop = (int) (rowHeightIndex.getOffset(position) - getRowScrollOffset()) + getPaddingTop();
+            rowHeight = rowHeightIndex.getRowHeight(position);
+        }
+        if (alignToTop) {
+            return rowTop - getPaddingTop() - topOffset;
+        }
+
+        final int rowBottom = rowTop + rowHeight;
+        final int bottom = getHeight() - getPaddingBottom();
+        if (rowTop < getPaddingTop()) {
+            return rowTop - getPaddingTop();
+        } else if (rowBottom > bottom) {
+            return Math.min(rowBottom - bottom, rowTop - getPaddingTop());
+        }
+        return 0;
+    }
+
+    /**
+     * Scrolls by the distance to the position found from the heights of the rows in between, so the list flings
+     * straight to the row rather than repeatedly laying out and correcting as with {@link ListView}. Rows that have
+     * not been laid out yet are estimated at the average height of those that have, so once the scroll ends the
+     * remaining distance (now exact, as the rows around the target have been laid out) is scrolled by a short
+     * correction
+     *
+     * @param position list position to scroll to
+     */
+    @Override
+    public void smoothScrollToPosition(int position) {
+        if (getChildCount() == 0) {
+            super.smoothScrollToPosition(position);
+            return;
+        }
+        startSmoothScroll(position, false, 0, SMOOTH_SCROLL_DURATION);
+    }
+
+    /**
+     * @param position list position to scroll to
+     * @param offset   distance from the top of the list's content area to leave above the row
+     * @see #smoothScrollToPosition(int)
+     */
+    @Override
+    public void smoothScrollToPositionFromTop(int position, int offset) {
+        smoothScrollToPositionFromTop(position, offset, SMOOTH_SCROLL_DURATION);
+    }
+
+    /**
+     * @param position list position to scroll to
+     * @param offset   distance from the top of the list's content area to leave above the row
+     * @param duration duration of the scroll in milliseconds
+     * @see #smoothScrollToPosition(int)
+     */
+    @Override
+    public void smoothScrollToPositionFromTop(int position, int offset, int duration) {
+        if (getChildCount() == 0) {
+            super.smoothScrollToPositionFromTop(position, offset, duration);
+            return;
+        }
+        startSmoothScroll(position, true, offset, duration);
+    }
+
+    private void startSmoothScroll(int position, boolean alignToTop, int topOffset, int duration) {
+        mSmoothScrollPosition = position;
+        mIsSmoothScrollAlignedToTop = alignToTop;
+        mSmoothScrollOffset = topOffset;
+        mSmoothScrollCorrections = 0;
+        smoothScrollToTarget(duration);
+    }
+
+    private void smoothScrollToTarget(int duration) {
+        smoothScrollBy(getScrollDistanceToPosition(mSmoothScrollPosition, mIsSmoothScrollAlignedToTop,
+                mSmoothScrollOffset), duration);
+        // the scroller runs on the same time base
+        mSmoothScrollEndTime = AnimationUtils.currentAnimationTimeMillis() + duration;
+        removeCallbacks(mSmoothScrollCorrection);
+        ViewCompat.postOnAnimation(this, mSmoothScrollCorrection);
+    }
+
+    private void correctSmoothScroll() {
+        if (mSmoothScrollPosition == INVALID_POSITION || getChildCount() == 0) {
+            return;
+        }
+        if (AnimationUtils.currentAnimationTimeMillis() <= mSmoothScrollEndTime) {
+            ViewCompat.postOnAnimation(this, mSmoothScrollCorrection);
+            return;
+        }
+
+        final int distance = getScrollDistanceToPosition(mSmoothScrollPosition, mIsSmoothScrollAlignedToTop,
+                mSmoothScrollOffset);
+        if (distance == 0 || mSmoothScrollCorrections++ >= MAX_SMOOTH_SCROLL_CORRECTIONS) {
+            cancelSmoothScrollCorrection();
+            return;
+        }
+        smoothScrollToTarget(SMOOTH_SCROLL_CORRECTION_DURATION);
+    }
+
+    private void cancelSmoothScrollCorrection() {
+        mSmoothScrollPosition = INVALID_POSITION;
+        removeCallbacks(mSmoothScrollCorrection);
+    }
+
+    @Override
+    protected int computeVerticalScrollRange() {
+        if (getChildCount() == 0 || mAdapterWrapper == null) {
+            return super.computeVerticalScrollRange();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, getRowHeightIndex().getTotalHeight() + getPaddingTop() + getPaddingBottom());
+    }
+
+    @Override
+    protected int computeVerticalScrollOffset() {
+        if (getChildCount() == 0 || mAdapterWrapper == null) {
+            return super.computeVerticalScrollOffset();
+        }
+        final long maxOffset = Math.max(0, computeVerticalScrollRange() - computeVerticalScrollExtent());
+        return (int) Math.max(0, Math.min(maxOffset, getRowScrollOffset()));
+    }
+
+    @Override
+    protected int computeVerticalScrollExtent() {
+        if (getChildCount() == 0 || mAdapterWrapper == null) {
+            return super.computeVerticalScrollExtent();
+        }
+        return getHeight();
+    }
+
+    /**
+     * @return the ExpansionStateFile holding the expanded positions, null if they are held in memory
+     * @see #setExpansionStateFile(ExpansionStateFile)
+     */
+    public ExpansionStateFile getExpansionStateFile() {
+        return mExpansionStateFile;
+    }
+
+    /**
+     * Holds the expanded positions in a memory-mapped file rather than in memory, so they survive process death
+     * without being written to the saved instance state (whose size is limited) and restoring them costs nothing
+     * regardless of the number of rows. Rows on screen take on the file's state immediately. The file is not used
+     * while an {@link ExpansionStateModel} is set, and is not closed by this list
+     *
+     * @param expansionStateFile ExpansionStateFile holding the expanded positions, null to hold them in memory
+     *                           (starting with every row collapsed)
+     */
+    public void setExpansionStateFile(ExpansionStateFile expansionStateFile) {
+        mExpansionStateFile = expansionStateFile;
+        mExpandedViews = expansionStateFile != null ? expansionStateFile : new ExpandedPositionSet();
+        mPreFilterExpandedKeys = null;
+        mIsRowHeightIndexStale = true;
+        applyExpandedStateToChildren(0, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * @return the ExpansionStateModel holding the expanded state of rows, null if it is held by this list
+     * @see #setExpansionStateModel(ExpansionStateModel)
+     */
+    public ExpansionStateModel getExpansionStateModel() {
+        return mExpansionStateModel;
+    }
+
+    /**
+     * Holds the expanded state of rows in a model rather than in this list, keyed by item id if the adapter has
+     * stable ids, otherwise by position. The model may be shared with other screens and changed from any thread,
+     * rows on screen follow its changes once per frame and every other row when it is next bound. Rows should not
+     * be bound to the model individually with {@link ExpandableView#setExpansionStateModel(ExpansionStateModel, long)}
+     *
+     * @param model ExpansionStateModel holding the expanded state, null for the list to hold it
+     */
+    public void setExpansionStateModel(ExpansionStateModel model) {
+        if (mExpansionStateModel != null) {
+            mExpansionStateModel.unregisterObserver(mExpansionStateObserver);
+        }
+
+        mExpansionStateModel = model;
+        mPreFilterExpandedKeys = null;
+        mIsRowHeightIndexStale = true;
+        if (model != null && getWindowToken() != null) {
+            model.registerObserver(mExpansionStateObserver);
+        }
+        applyExpandedStateToChildren(0, Integer.MAX_VALUE, false);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mExpansionStateModel != null) {
+            mExpansionStateModel.registerObserver(mExpansionStateObserver);
+            applyExpandedStateToChildren(0, Integer.MAX_VALUE, false);
+        }
+    }
+
+    /**
+     * Rows that are not on screen are reconciled when they are next bound
+     */
+    private void applyExpandedStateToChildren(int startPosition, int endPosition, boolean animate) {
+        for (int i = 0; i < getChildCount(); i++) {
+            ExpandableView expandableView = findExpandableView(getChildAt(i));
+            if (expandableView == null || expandableView.isAnimating()) {
+                continue;
+            }
+
+            final int position = expandableView.getId();
+            if (position < startPosition || position >= endPosition) {
+                continue;
+            }
+            final boolean expanded = isPositionExpanded(position);
+            if (expandableView.isExpanded() != expanded) {
+                expandableView.setExpanded(expanded, animate);
+            }
+        }
+    }
+
+    @Override
+    protected void layoutChildren() {
+        super.layoutChildren();
+        recordRowHeights();
+    }
+
+    @Override
+    protected void handleDataChanged() {
+        super.handleDataChanged();
+        // heights are kept by position, which may now hold different rows if the count changed
+        mIsRowHeightIndexStale = true;
+    }
+
+    @Override
+    public void setRecyclerListener(RecyclerListener listener) {
+        mRecyclerListener = listener;
+    }
+
+    /**
+     * @return boolean determining if measure/layout passes are being counted
+     * @see #setLayoutPassDebugEnabled(boolean)
+     */
+    public boolean isLayoutPassDebugEnabled() {
+        return mLayoutPassStats != null;
+    }
+
+    /**
+     * Debugging aid that counts onMeasure/onLayout/requestLayout calls on this list (including requestLayout calls
+     * made while drawing children) during each expand/collapse transition. Layout pass debugging is also enabled
+     * on every ExpandableView bound by this list, so both counts are reported to the same listener.
+     *
+     * @param layoutPassDebugEnabled boolean determining if measure/layout passes should be counted
+     * @see #setOnLayoutPassListener(ExpandableView.OnLayoutPassListener)
+     */
+    public void setLayoutPassDebugEnabled(boolean layoutPassDebugEnabled) {
+        if (isLayoutPassDebugEnabled() == layoutPassDebugEnabled) {
+            return;
+        }
+
+        mLayoutPassStats = layoutPassDebugEnabled ? new LayoutPassStats() : null;
+        invalidateViews();
+    }
+
+    /**
+     * @return the counts recorded for the current (or last) transition, null if layout pass debugging is disabled
+     */
+    public LayoutPassStats getLayoutPassStats() {
+        return mLayoutPassStats;
+    }
+
+    /**
+     * @param listener OnLayoutPassListener that will receive the counts recorded during each transition
+     * @see #setLayoutPassDebugEnabled(boolean)
+     */
+    public void setOnLayoutPassListener(ExpandableView.OnLayoutPassListener listener) {
+        mLayoutPassListener = listener;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mLayoutPassStats != null) {
+            mLayoutPassStats.onMeasure();
+        }
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (mLayoutPassStats != null) {
+            mLayoutPassStats.onLayout();
+        }
+        super.onLayout(changed, l, t, r, b);
+    }
+
+    @Override
+    public void requestLayout() {
+        // may be called by the super constructor before any fields are initialized
+        if (mLayoutPassStats != null) {
+            mLayoutPassStats.onRequestLayout(mIsDrawing);
+        }
+        super.requestLayout();
+    }
+
+    @Override
+    protected void dispatchDraw(@NonNull Canvas canvas) {
+        mIsDrawing = true;
+        try {
+            super.dispatchDraw(canvas);
+            if (mStickyHeaders) {
+                drawStickyHeader(canvas);
+            }
+        } finally {
+            mIsDrawing = false;
+        }
+    }
+
+    private void drawStickyHeader(Canvas canvas) {
+        mStickyExpandableView = null;
+        final int top = getPaddingTop();
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getBottom() <= top) {
+                continue;
+            }
+
+            // only the row at the top of the list may pin its header
+            ExpandableView expandableView = findExpandableView(child);
+            View headerView = expandableView != null ? expandableView.getHeaderView() : null;
+            View contentView = expandableView != null ? expandableView.peekContentView() : null;
+            if (headerView == null || contentView == null || !expandableView.isExpanded()
+                    || headerView.getWidth() == 0 || headerView.getHeight() == 0) {
+                return;
+            }
+
+            Rect headerBounds = mStickyHeaderBounds;
+            headerView.getDrawingRect(headerBounds);
+            offsetDescendantRectToMyCoords(headerView, headerBounds);
+            if (headerBounds.top >= top) {
+                return;
+            }
+            Rect contentBounds = mStickyContentBounds;
+            contentView.getDrawingRect(contentBounds);
+            offsetDescendantRectToMyCoords(contentView, contentBounds);
+            if (contentBounds.bottom <= top) {
+                return;
+            }
+
+            // the pinned header is pushed up by the end of the row's content
+            headerBounds.offsetTo(headerBounds.left, Math.min(top, contentBounds.bottom - headerBounds.height()));
+            Bitmap headerBitmap = getStickyHeaderBitmap(headerView, expandableView.getId());
+            canvas.save();
+            canvas.clipRect(getPaddingLeft(), top, getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+            canvas.drawBitmap(headerBitmap, headerBounds.left, headerBounds.top, null);
+            canvas.restore();
+            mStickyExpandableView = expandableView;
+            return;
+        }
+    }
+
+    private Bitmap getStickyHeaderBitmap(View headerView, int position) {
+        if (mStickyHeaderBitmap != null && mStickyHeaderPosition == position
+                && mStickyHeaderBitmap.getWidth() == headerView.getWidth()
+                && mStickyHeaderBitmap.getHeight() == headerView.getHeight()) {
+            return mStickyHeaderBitmap;
+        }
+
+        if (mStickyHeaderBitmap == null || mStickyHeaderBitmap.getWidth() != headerView.getWidth()
+                || mStickyHeaderBitmap.getHeight() != headerView.getHeight()) {
+            if (mStickyHeaderBitmap != null) {
+                mStickyHeaderBitmap.recycle();
+            }
+            mStickyHeaderBitmap = Bitmap.createBitmap(headerView.getWidth(), headerView.getHeight(), Bitmap.Config.ARGB_8888);
+        } else {
+            mStickyHeaderBitmap.eraseColor(0);
+        }
+        headerView.draw(new Canvas(mStickyHeaderBitmap));
+        mStickyHeaderPosition = position;
+        return mStickyHeaderBitmap;
+    }
+
+    private void clearStickyHeader() {
+        if (mStickyHeaderBitmap != null) {
+            mStickyHeaderBitmap.recycle();
+            mStickyHeaderBitmap = null;
+        }
+        mStickyHeaderPosition = INVALID_POSITION;
+        mStickyExpandableView = null;
+        mIsStickyHeaderPressed = false;
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(@NonNull MotionEvent ev) {
+        if (ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            // the user took over the scroll
+            cancelSmoothScrollCorrection();
+        }
+        if (mStickyExpandableView == null && !mIsStickyHeaderPressed) {
+            return super.dispatchTouchEvent(ev);
+        }
+
+        final boolean inStickyHeader = mStickyHeaderBounds.contains((int) ev.getX(), (int) ev.getY());
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mIsStickyHeaderPressed = mStickyExpandableView != null && inStickyHeader;
+                break;
+            case MotionEvent.ACTION_UP:
+                if (mIsStickyHeaderPressed) {
+                    mIsStickyHeaderPressed = false;
+                    if (inStickyHeader && mStickyExpandableView != null) {
+                        mStickyExpandableView.getHeaderView().performClick();
+                    }
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                if (mIsStickyHeaderPressed) {
+                    mIsStickyHeaderPressed = false;
+                    return true;
+                }
+                break;
+        }
+
+        return mIsStickyHeaderPressed || super.dispatchTouchEvent(ev);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        clearStickyHeader();
+        cancelSmoothScrollCorrection();
+        if (mExpansionStateModel != null) {
+            mExpansionStateModel.unregisterObserver(mExpansionStateObserver);
+        }
+    }
+
     @Override
     public Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         SavedState ss = new SavedState(superState);
-        ss.mExpandedViews = mExpandedViews;
+        // an ExpansionStateFile already holds the expanded positions
+        ss.mExpandedViews = mExpansionStateFile == null ? mExpandedViews : null;
         return ss;
     }
 
@@ -75,34 +974,203 @@ public class ExpandableListView extends ListView implements ExpandableView.Expan
     public void onRestoreInstanceState(Parcelable state) {
         SavedState ss = (SavedState) state;
         super.onRestoreInstanceState(ss.getSuperState());
-        mExpandedViews = ss.mExpandedViews;
+        if (mExpansionStateFile == null) {
+            mExpandedViews = ss.mExpandedViews;
+        }
+        mIsRowHeightIndexStale = true;
     }
 
+    /**
+     * The adapter is wrapped so each row's expanded state is reconciled when the row is bound during layout,
+     * rather than on every draw. {@link #getAdapter()} still returns the adapter passed here
+     *
+     * @param adapter ListAdapter whose rows contain an ExpandableView
+     */
     @Override
-    protected boolean drawChild(@NonNull Canvas canvas, @NonNull View child, long drawingTime) {
-        boolean drawChild = super.drawChild(canvas, child, drawingTime);
-
-        ExpandableView expandableView;
-        if (child instanceof ExpandableView) {
-            expandableView = (ExpandableView) child;
+    public void setAdapter(ListAdapter adapter) {
+        ++mFilterGeneration;
+        mPreFilterExpandedKeys = null;
+        mRowHeightIndex = null;
+        mHeaderViewAdapter = null;
+        cancelSmoothScrollCorrection();
+        if (adapter instanceof Filterable) {
+            mAdapterWrapper = new FilterableListAdapterWrapper(adapter);
         } else {
-            expandableView = (ExpandableView) child.findViewWithTag(ExpandableView.class.getName());
+            mAdapterWrapper = adapter != null ? new ExpandableListAdapterWrapper(adapter) : null;
         }
+        super.setAdapter(mAdapterWrapper);
+    }
+
+    /**
+     * @return the adapter passed to {@link #setAdapter(ListAdapter)}, or a HeaderViewListAdapter wrapping it if header
+     * or footer views were added, never the wrapper binding rows
+     */
+    @Override
+    public ListAdapter getAdapter() {
+        ListAdapter adapter = super.getAdapter();
+        if (adapter == null || mAdapterWrapper == null) {
+            return adapter;
+        }
+        if (adapter == mAdapterWrapper) {
+            return mAdapterWrapper.getWrappedAdapter();
+        }
+        if (mHeaderViewAdapter == null) {
+            mHeaderViewAdapter = new HeaderViewListAdapter(mHeaderViewInfos, mFooterViewInfos,
+                    mAdapterWrapper.getWrappedAdapter());
+        }
+        return mHeaderViewAdapter;
+    }
+
+    @Override
+    public void addHeaderView(View v, Object data, boolean isSelectable) {
+        super.addHeaderView(v, data, isSelectable);
+        mHeaderViewInfos.add(newFixedViewInfo(v, data, isSelectable));
+        mHeaderViewAdapter = null;
+    }
+
+    @Override
+    public boolean removeHeaderView(View v) {
+        final boolean removed = super.removeHeaderView(v);
+        removeFixedViewInfo(v, mHeaderViewInfos);
+        mHeaderViewAdapter = null;
+        return removed;
+    }
+
+    @Override
+    public void addFooterView(View v, Object data, boolean isSelectable) {
+        super.addFooterView(v, data, isSelectable);
+        mFooterViewInfos.add(newFixedViewInfo(v, data, isSelectable));
+        mHeaderViewAdapter = null;
+    }
 
-        if (expandableView != null) {
-            final int position = getPositionForView(child);
+    @Override
+    public boolean removeFooterView(View v) {
+        final boolean removed = super.removeFooterView(v);
+        removeFixedViewInfo(v, mFooterViewInfos);
+        mHeaderViewAdapter = null;
+        return removed;
+    }
+
+    private FixedViewInfo newFixedViewInfo(View v, Object data, boolean isSelectable) {
+        FixedViewInfo info = new FixedViewInfo();
+        info.view = v;
+        info.data = data;
+        info.isSelectable = isSelectable;
+        return info;
+    }
+
+    private static void removeFixedViewInfo(View v, ArrayList<FixedViewInfo> infos) {
+        for (int i = 0; i < infos.size(); i++) {
+            if (infos.get(i).view == v) {
+                infos.remove(i);
+                return;
+            }
+        }
+    }
+
+    private void bindExpandableView(View child, int position) {
+        ExpandableView expandableView = findExpandableView(child);
+        if (expandableView == null) {
+            return;
+        }
+
+        ExpandableViewTrace.beginSection(ExpandableViewTrace.BIND_ROW);
+        try {
             expandableView.setId(position);
+            if (position == mStickyHeaderPosition) {
+                // the header may have been bound with new data
+                mStickyHeaderPosition = INVALID_POSITION;
+            }
+            expandableView.setExpandableViewListener(this);
+            expandableView.setLayoutPassDebugEnabled(isLayoutPassDebugEnabled());
+            expandableView.setOnLayoutPassListener(mLayoutPassListener);
+            if (mMotionPolicy != null) {
+                expandableView.setMotionPolicy(mMotionPolicy);
+            }
+            if (mContentViewAdapter != null) {
+                expandableView.setContentHost(mContentViewPoolHost);
+                expandableView.setReleaseContentWhenCollapsed(true);
+            }
+
+            final boolean expanded = isPositionExpanded(position);
+            if (!expandableView.isAnimating() && expandableView.isExpanded() != expanded) {
+                expandableView.setExpanded(expanded, false);
+            } else if (mContentViewAdapter != null && expanded) {
+                // the row's content may have been returned when it was scrolled off, or was bound to another position
+                borrowContentView(expandableView, position);
+            }
+        } finally {
+            ExpandableViewTrace.endSection();
+        }
+    }
+
+    private void borrowContentView(ExpandableView expandableView, int position) {
+        if (mContentViewAdapter == null) {
+            return;
+        }
 
-            if (mExpandedViews.contains(position)) {
-                expandableView.setExpanded(true, false);
+        ViewGroup contentSlot = getContentSlot(expandableView);
+        final int viewType = mContentViewAdapter.getContentViewType(position);
+        View contentView = contentSlot.getChildCount() > 0 ? contentSlot.getChildAt(0) : null;
+        if (contentView != null && !Integer.valueOf(viewType).equals(contentView.getTag(R.id.ev_content_view_type))) {
+            returnContentView(expandableView);
+            contentView = null;
+        }
+
+        if (contentView == null) {
+            ArrayList<View> scrap = mContentViewPool.get(viewType);
+            if (scrap != null && !scrap.isEmpty()) {
+                contentView = scrap.remove(scrap.size() - 1);
             } else {
-                expandableView.setExpanded(false, false);
+                contentView = mContentViewAdapter.createContentView(viewType, contentSlot);
+                contentView.setTag(R.id.ev_content_view_type, viewType);
             }
+            contentView.setTag(R.id.ev_content_position, null);
+            contentSlot.addView(contentView);
+        }
 
-            expandableView.setExpandableViewListener(this);
+        if (!Integer.valueOf(position).equals(contentView.getTag(R.id.ev_content_position))) {
+            mContentViewAdapter.bindContentView(contentView, position);
+            contentView.setTag(R.id.ev_content_position, position);
         }
+    }
 
-        return drawChild;
+    private void returnContentView(ExpandableView expandableView) {
+        ViewGroup contentSlot = getContentSlot(expandableView);
+        if (contentSlot == null || contentSlot.getChildCount() == 0) {
+            return;
+        }
+
+        View contentView = contentSlot.getChildAt(0);
+        contentSlot.removeView(contentView);
+        final int viewType = (Integer) contentView.getTag(R.id.ev_content_view_type);
+        ArrayList<View> scrap = mContentViewPool.get(viewType);
+        if (scrap == null) {
+            scrap = new ArrayList<View>(MAX_POOLED_CONTENT_VIEWS);
+            mContentViewPool.put(viewType, scrap);
+        }
+        if (scrap.size() < MAX_POOLED_CONTENT_VIEWS) {
+            scrap.add(contentView);
+        }
+    }
+
+    private ViewGroup getContentSlot(ExpandableView expandableView) {
+        View contentView = expandableView.peekContentView();
+        if (contentView == null) {
+            return null;
+        } else if (!(contentView instanceof ViewGroup)) {
+            throw new IllegalStateException("ExpandableView content must be an empty ViewGroup when a ContentViewAdapter is set");
+        }
+        return (ViewGroup) contentView;
+    }
+
+    private ExpandableView findExpandableView(View child) {
+        if (child == null) {
+            return null;
+        } else if (child instanceof ExpandableView) {
+            return (ExpandableView) child;
+        }
+        return (ExpandableView) child.findViewWithTag(ExpandableView.class.getName());
     }
 
     /**
@@ -130,7 +1198,11 @@ public class ExpandableListView extends ListView implements ExpandableView.Expan
 
     @Override
     public void willExpand(ExpandableView expandableView) {
-        mExpandedViews.add(expandableView.getId());
+        if (mLayoutPassStats != null) {
+            mLayoutPassStats.reset();
+        }
+        // the expanded height is recorded by the layout after the last frame, from the height the row lays out at
+        setPositionExpanded(expandableView.getId(), true);
         if (mListener != null) {
             mListener.willExpand(expandableView);
         }
@@ -138,22 +1210,35 @@ public class ExpandableListView extends ListView implements ExpandableView.Expan
             return;
         }
 
-        final int currentPosition = expandableView.getId();
-        for (int i=getFirstVisiblePosition(); i<=getLastVisiblePosition(); i++) {
-            View child = getChildAt(i);
-            if (child instanceof ExpandableView) {
-                expandableView = (ExpandableView) child;
-            } else {
-                expandableView = (ExpandableView) child.findViewWithTag(ExpandableView.class.getName());
+        // rows that are scrolled off screen are collapsed when they are next bound
+        final long expandingKey = getStateKey(expandableView.getId());
+        if (mExpansionStateModel != null) {
+            for (long key : mExpansionStateModel.getExpandedKeys()) {
+                if (key != expandingKey) {
+                    mExpansionStateModel.setExpanded(key, false);
+                }
             }
-            if (expandableView != null && i != currentPosition) {
-                expandableView.collapseContent();
+        } else {
+            for (int position : mExpandedViews.toArray()) {
+                if (position != expandableView.getId()) {
+                    setPositionExpanded(position, false);
+                }
+            }
+        }
+        for (int i = 0; i < getChildCount(); i++) {
+            ExpandableView child = findExpandableView(getChildAt(i));
+            if (child != null && child != expandableView) {
+                child.collapseContent();
             }
         }
     }
 
     @Override
     public void willCollapse(ExpandableView expandableView) {
+        if (mLayoutPassStats != null) {
+            mLayoutPassStats.reset();
+        }
+        setPositionExpanded(expandableView.getId(), false);
         if (mListener != null) {
             mListener.willCollapse(expandableView);
         }
@@ -164,14 +1249,38 @@ public class ExpandableListView extends ListView implements ExpandableView.Expan
         if (mListener != null) {
             mListener.didExpand(expandableView);
         }
+        if (mLayoutPassStats != null && mLayoutPassListener != null) {
+            mLayoutPassListener.onLayoutPassesCounted(this, expandableView, mLayoutPassStats);
+        }
+        reconcileExpandedState(expandableView);
     }
 
     @Override
     public void didCollapse(ExpandableView expandableView) {
-        mExpandedViews.remove((Integer) expandableView.getId());
         if (mListener != null) {
             mListener.didCollapse(expandableView);
         }
+        if (mLayoutPassStats != null && mLayoutPassListener != null) {
+            mLayoutPassListener.onLayoutPassesCounted(this, expandableView, mLayoutPassStats);
+        }
+        reconcileExpandedState(expandableView);
+    }
+
+    /**
+     * Rows that were animating when their state changed (by a query, the model or another row expanding) are
+     * skipped by {@link #applyExpandedStateToChildren(int, int, boolean)}, so they catch up once their transition
+     * ends
+     */
+    private void reconcileExpandedState(ExpandableView expandableView) {
+        final int position = expandableView.getId();
+        if (mAdapterWrapper == null || position < 0 || position >= mAdapterWrapper.getCount()) {
+            return;
+        }
+
+        final boolean expanded = isPositionExpanded(position);
+        if (expandableView.isExpanded() != expanded) {
+            expandableView.setExpanded(expanded, isShown());
+        }
     }
 
     @Override
@@ -181,6 +1290,141 @@ public class ExpandableListView extends ListView implements ExpandableView.Expan
         }
     }
 
+    public interface ContentViewAdapter {
+        /**
+         * @param position adapter position of the row
+         * @return the type of content view the row expands with, content views are only shared between rows of the same type
+         */
+        int getContentViewType(int position);
+
+        /**
+         * @param viewType type returned from {@link #getContentViewType(int)}
+         * @param parent   the row's content view the created view will be added to
+         * @return a new content view of the given type
+         */
+        View createContentView(int viewType, ViewGroup parent);
+
+        /**
+         * @param contentView content view borrowed from the pool, of the type returned for the position
+         * @param position    adapter position of the row that is expanding
+         */
+        void bindContentView(View contentView, int position);
+    }
+
+    public interface RowMatcher {
+        /**
+         * Called on a worker thread
+         *
+         * @param item  the adapter item of a row, as returned from {@link android.widget.Adapter#getItem(int)}
+         * @param query the query passed to {@link #filterExpandedRows(CharSequence)}
+         * @return boolean determining if the row should be expanded
+         */
+        boolean matches(Object item, String query);
+    }
+
+    public interface OnFilterListener {
+        /**
+         * @param listView   the filtered ExpandableListView
+         * @param query      the query whose results were applied
+         * @param matchCount number of rows matched so far
+         * @param complete   boolean determining if every row has been matched
+         */
+        void onFilterResults(ExpandableListView listView, CharSequence query, int matchCount, boolean complete);
+    }
+
+    private class ExpandableListAdapterWrapper implements WrapperListAdapter {
+
+        private final ListAdapter mAdapter;
+
+        ExpandableListAdapterWrapper(ListAdapter adapter) {
+            mAdapter = adapter;
+        }
+
+        @Override
+        public ListAdapter getWrappedAdapter() {
+            return mAdapter;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View view = mAdapter.getView(position, convertView, parent);
+            bindExpandableView(view, position);
+            return view;
+        }
+
+        @Override
+        public boolean areAllItemsEnabled() {
+            return mAdapter.areAllItemsEnabled();
+        }
+
+        @Override
+        public boolean isEnabled(int position) {
+            return mAdapter.isEnabled(position);
+        }
+
+        @Override
+        public void registerDataSetObserver(DataSetObserver observer) {
+            mAdapter.registerDataSetObserver(observer);
+        }
+
+        @Override
+        public void unregisterDataSetObserver(DataSetObserver observer) {
+            mAdapter.unregisterDataSetObserver(observer);
+        }
+
+        @Override
+        public int getCount() {
+            return mAdapter.getCount();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return mAdapter.getItem(position);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mAdapter.getItemId(position);
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return mAdapter.hasStableIds();
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return mAdapter.getItemViewType(position);
+        }
+
+        @Override
+        public int getViewTypeCount() {
+            return mAdapter.getViewTypeCount();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return mAdapter.isEmpty();
+        }
+
+    }
+
+    /**
+     * Only Filterable adapters are wrapped as Filterable, as AbsListView filters any Filterable adapter when text
+     * filtering is enabled
+     */
+    private class FilterableListAdapterWrapper extends ExpandableListAdapterWrapper implements Filterable {
+
+        FilterableListAdapterWrapper(ListAdapter adapter) {
+            super(adapter);
+        }
+
+        @Override
+        public Filter getFilter() {
+            return ((Filterable) getWrappedAdapter()).getFilter();
+        }
+    }
+
     static class SavedState extends BaseSavedState {
         public static final Parcelable.Creator<SavedState> CREATOR =
                 new Parcelable.Creator<SavedState>() {
@@ -195,7 +1439,7 @@ public class ExpandableListView extends ListView implements ExpandableView.Expan
                     }
                 };
 
-        List<Integer> mExpandedViews;
+        ExpandedPositionSet mExpandedViews;
 
         SavedState(Parcelable superState) {
             super(superState);
@@ -203,13 +1447,13 @@ public class ExpandableListView extends ListView implements ExpandableView.Expan
 
         private SavedState(Parcel in) {
             super(in);
-            mExpandedViews = in.readArrayList(ArrayList.class.getClassLoader());
+            mExpandedViews = new ExpandedPositionSet(in.createLongArray());
         }
 
         @Override
         public void writeToParcel(@NonNull Parcel out, int flags) {
             super.writeToParcel(out, flags);
-            out.writeList(mExpandedViews);
+            out.writeLongArray(mExpandedViews != null ? mExpandedViews.toWords() : null);
         }
     }
 }
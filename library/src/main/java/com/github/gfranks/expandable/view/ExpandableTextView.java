@@ -0,0 +1,223 @@
+package com.github.gfranks.expandable.view;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Layout;
+import android.text.SpannableStringBuilder;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+/**
+ * ExpandableView specialized for long text. The content view must be a TextView, which is collapsed to a maximum
+ * number of lines (ending with an ellipsis) instead of a pixel height.
+ * <p/>
+ * The full text layout is built on a background thread as soon as the width is known, so both the expanded and
+ * collapsed heights are known before the content is tapped and expanding does not measure the text on the UI thread.
+ */
+public class ExpandableTextView extends ExpandableView {
+
+    private static final int DEFAULT_COLLAPSED_MAX_LINES = 3;
+    /**
+     * Delivers background results, View#post from another thread is lost while detached before API 24
+     */
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    /**
+     * Maximum number of lines shown when collapsed
+     */
+    private int mCollapsedMaxLines;
+    private CharSequence mText;
+    private CharSequence mCollapsedText;
+    /**
+     * Expanded content height computed off the UI thread, and the width it was computed at
+     */
+    private int mPrecomputedExpandedHeight;
+    private int mPrecomputedWidth;
+    /**
+     * Incremented whenever the text, width or max lines change so stale background results are dropped
+     */
+    private int mLayoutGeneration;
+
+    public ExpandableTextView(Context context) {
+        super(context);
+        mCollapsedMaxLines = DEFAULT_COLLAPSED_MAX_LINES;
+    }
+
+    public ExpandableTextView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public ExpandableTextView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ExpandableTextView, defStyleAttr, 0);
+        mCollapsedMaxLines = a.getInt(R.styleable.ExpandableTextView_ev_collapsedMaxLines, DEFAULT_COLLAPSED_MAX_LINES);
+        a.recycle();
+    }
+
+    /**
+     * @return the content view
+     * @throws java.lang.IllegalStateException if the content view is not a TextView
+     */
+    public TextView getTextView() {
+        View contentView = getContentView();
+        if (contentView != null && !(contentView instanceof TextView)) {
+            throw new IllegalStateException("ExpandableTextView content view must be a TextView");
+        }
+        return (TextView) contentView;
+    }
+
+    /**
+     * @return the full text
+     * @see #setText(CharSequence)
+     */
+    public CharSequence getText() {
+        if (mText == null && getTextView() != null) {
+            mText = getTextView().getText();
+        }
+        return mText;
+    }
+
+    /**
+     * Always set text through this method rather than on the TextView so the layout can be precomputed
+     *
+     * @param text the full text, shown with an ellipsis after {@link #getCollapsedMaxLines()} lines when collapsed
+     */
+    public void setText(CharSequence text) {
+        mText = text;
+        mCollapsedText = null;
+        getTextView().setText(text);
+        precomputeTextLayout();
+    }
+
+    /**
+     * @return the maximum number of lines shown when collapsed
+     * @see #setCollapsedMaxLines(int)
+     */
+    public int getCollapsedMaxLines() {
+        return mCollapsedMaxLines;
+    }
+
+    /**
+     * @param collapsedMaxLines the maximum number of lines shown when collapsed. This replaces ev_collapsedContentHeight
+     */
+    public void setCollapsedMaxLines(int collapsedMaxLines) {
+        mCollapsedMaxLines = collapsedMaxLines;
+        precomputeTextLayout();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (w != oldw) {
+            precomputeTextLayout();
+        }
+    }
+
+    @Override
+    protected int measureExpandedContentHeight() {
+        TextView textView = getTextView();
+        if (mCollapsedText != null) {
+            textView.setText(getText());
+        }
+        if (mPrecomputedExpandedHeight > 0 && mPrecomputedWidth == getContentWidth()) {
+            return recordExpandedContentHeight(mPrecomputedExpandedHeight);
+        }
+        return super.measureExpandedContentHeight();
+    }
+
+    @Override
+    protected void onExpandedStateChanged(boolean expanded) {
+        super.onExpandedStateChanged(expanded);
+        if (expanded) {
+            // also reached by setExpanded(true, false), which does not measure the expanded content
+            getTextView().setText(getText());
+        } else if (mCollapsedText != null) {
+            getTextView().setText(mCollapsedText);
+        }
+    }
+
+    private int getContentWidth() {
+        int width = getWidth() - getPaddingLeft() - getPaddingRight();
+        ViewGroup.LayoutParams lp = getTextView().getLayoutParams();
+        if (lp instanceof MarginLayoutParams) {
+            width -= ((MarginLayoutParams) lp).leftMargin + ((MarginLayoutParams) lp).rightMargin;
+        }
+        return width;
+    }
+
+    private void precomputeTextLayout() {
+        final TextView textView = getTextView();
+        final CharSequence text = getText();
+        final int contentWidth = textView != null ? getContentWidth() : 0;
+        if (text == null || contentWidth <= 0) {
+            return;
+        }
+
+        // everything the background thread reads is captured here, on the UI thread
+        final int generation = ++mLayoutGeneration;
+        final int maxLines = mCollapsedMaxLines;
+        final int textWidth = Math.max(0, contentWidth - textView.getCompoundPaddingLeft() - textView.getCompoundPaddingRight());
+        final int verticalPadding = textView.getCompoundPaddingTop() + textView.getCompoundPaddingBottom();
+        final TextPaint paint = new TextPaint(textView.getPaint());
+        final float spacingMultiplier;
+        final float spacingAdd;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            spacingMultiplier = textView.getLineSpacingMultiplier();
+            spacingAdd = textView.getLineSpacingExtra();
+        } else {
+            spacingMultiplier = 1f;
+            spacingAdd = 0f;
+        }
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                StaticLayout layout = new StaticLayout(text, paint, textWidth, Layout.Alignment.ALIGN_NORMAL,
+                        spacingMultiplier, spacingAdd, true);
+                final int expandedHeight = layout.getHeight() + verticalPadding;
+                final int collapsedHeight;
+                final CharSequence collapsedText;
+                if (layout.getLineCount() > maxLines && maxLines > 0) {
+                    int lastLineStart = layout.getLineStart(maxLines - 1);
+                    collapsedText = new SpannableStringBuilder(text, 0, lastLineStart)
+                            .append(TextUtils.ellipsize(text.subSequence(lastLineStart, text.length()), paint,
+                                    textWidth, TextUtils.TruncateAt.END));
+                    collapsedHeight = layout.getLineTop(maxLines) + verticalPadding;
+                } else {
+                    collapsedText = null;
+                    collapsedHeight = expandedHeight;
+                }
+
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mLayoutGeneration) {
+                            onTextLayoutPrecomputed(contentWidth, expandedHeight, collapsedHeight, collapsedText);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void onTextLayoutPrecomputed(int contentWidth, int expandedHeight, int collapsedHeight, CharSequence collapsedText) {
+        mPrecomputedWidth = contentWidth;
+        mPrecomputedExpandedHeight = expandedHeight;
+        mCollapsedText = collapsedText;
+        setCollapsedContentHeight(collapsedHeight);
+
+        if (!isExpanded() && !isAnimating()) {
+            setExpanded(false, false);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.github.gfranks.expandable.view;
+
+import android.content.Context;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+
+import java.util.HashSet;
+
+/**
+ * ListView for hierarchical data (e.g. categories -> groups -> items). Rather than nesting ExpandableViews, which
+ * measures every level's full subtree, the visible nodes are flattened into plain list rows using a
+ * {@link FlattenedTree}. Expanding or collapsing a node with thousands of descendants updates row positions in
+ * O(log n) and only the rows on screen are rebound.
+ * <p/>
+ * Nodes are supplied in pre-order by a {@link TreeAdapter}, all nodes start collapsed and clicking a row with
+ * children toggles it.
+ */
+public class ExpandableTreeView extends ListView {
+
+    private TreeAdapter mTreeAdapter;
+    private FlattenedTree mFlattenedTree;
+    private FlattenedTreeAdapter mFlattenedTreeAdapter;
+    private OnNodeToggleListener mListener;
+    /**
+     * Expanded nodes restored from a saved state before the adapter was set
+     */
+    private ExpandedPositionSet mPendingExpandedNodes;
+
+    public ExpandableTreeView(Context context) {
+        super(context);
+    }
+
+    public ExpandableTreeView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public ExpandableTreeView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * @param listener OnNodeToggleListener that will receive a callback after a node is expanded or collapsed
+     */
+    public void setOnNodeToggleListener(OnNodeToggleListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @return the TreeAdapter supplying nodes
+     * @see #setTreeAdapter(TreeAdapter)
+     */
+    public TreeAdapter getTreeAdapter() {
+        return mTreeAdapter;
+    }
+
+    /**
+     * Use this rather than {@link #setAdapter(android.widget.ListAdapter)}. {@link #getAdapter()} will return the
+     * adapter of flattened rows
+     *
+     * @param treeAdapter TreeAdapter supplying nodes in pre-order
+     */
+    public void setTreeAdapter(TreeAdapter treeAdapter) {
+        mTreeAdapter = treeAdapter;
+        if (treeAdapter == null) {
+            mFlattenedTree = null;
+            mFlattenedTreeAdapter = null;
+            setAdapter(null);
+            return;
+        }
+
+        buildFlattenedTree(mPendingExpandedNodes);
+        mPendingExpandedNodes = null;
+        mFlattenedTreeAdapter = new FlattenedTreeAdapter();
+        setAdapter(mFlattenedTreeAdapter);
+    }
+
+    /**
+     * Rebuilds the flattened index after the TreeAdapter's nodes have changed. Expanded nodes stay expanded if the
+     * adapter has stable ids
+     */
+    public void notifyTreeChanged() {
+        if (mTreeAdapter == null) {
+            return;
+        }
+
+        ExpandedPositionSet expandedNodes = null;
+        if (mTreeAdapter.hasStableIds()) {
+            HashSet<Long> expandedIds = new HashSet<Long>();
+            for (int node = 0; node < mFlattenedTree.getNodeCount(); node++) {
+                if (isNodeExpanded(node)) {
+                    expandedIds.add(mTreeAdapter.getNodeId(node));
+                }
+            }
+
+            expandedNodes = new ExpandedPositionSet();
+            for (int node = 0; node < mTreeAdapter.getNodeCount(); node++) {
+                if (expandedIds.contains(mTreeAdapter.getNodeId(node))) {
+                    expandedNodes.add(node);
+                }
+            }
+        }
+
+        buildFlattenedTree(expandedNodes);
+        mFlattenedTreeAdapter.notifyDataSetChanged();
+    }
+
+    private void buildFlattenedTree(ExpandedPositionSet expandedNodes) {
+        final int nodeCount = mTreeAdapter.getNodeCount();
+        int[] subtreeSizes = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            subtreeSizes[node] = mTreeAdapter.getSubtreeSize(node);
+        }
+
+        mFlattenedTree = new FlattenedTree(subtreeSizes);
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (expandedNodes == null || !expandedNodes.contains(node)) {
+                mFlattenedTree.collapse(node);
+            }
+        }
+    }
+
+    /**
+     * @param node pre-order node index
+     * @return boolean determining if the node has children and is expanded
+     */
+    public boolean isNodeExpanded(int node) {
+        return mFlattenedTree != null && mFlattenedTree.getSubtreeSize(node) > 0 && !mFlattenedTree.isCollapsed(node);
+    }
+
+    /**
+     * @param node pre-order node index
+     * @return the node's row position, -1 if one of its ancestors is collapsed
+     */
+    public int getNodePosition(int node) {
+        return mFlattenedTree != null ? mFlattenedTree.getPosition(node) : -1;
+    }
+
+    /**
+     * @param position row position
+     * @return the pre-order index of the node shown at that position
+     */
+    public int getNodeAtPosition(int position) {
+        return mFlattenedTree.getNode(position);
+    }
+
+    /**
+     * @param node pre-order node index
+     * @return number of ancestors of the node, useful for indenting rows
+     */
+    public int getNodeDepth(int node) {
+        return mFlattenedTree.getDepth(node);
+    }
+
+    /**
+     * @param node pre-order node index to expand, its descendants that were expanded before it was collapsed are shown again
+     */
+    public void expandNode(int node) {
+        if (mFlattenedTree == null || mFlattenedTree.expand(node) == 0) {
+            return;
+        }
+
+        mFlattenedTreeAdapter.notifyDataSetChanged();
+        if (mListener != null) {
+            mListener.onNodeExpanded(this, node);
+        }
+    }
+
+    /**
+     * @param node pre-order node index to collapse
+     */
+    public void collapseNode(int node) {
+        if (mFlattenedTree == null || mFlattenedTree.collapse(node) == 0) {
+            return;
+        }
+
+        mFlattenedTreeAdapter.notifyDataSetChanged();
+        if (mListener != null) {
+            mListener.onNodeCollapsed(this, node);
+        }
+    }
+
+    /**
+     * @param node pre-order node index to expand if collapsed, or collapse if expanded
+     */
+    public void toggleNode(int node) {
+        if (isNodeExpanded(node)) {
+            collapseNode(node);
+        } else {
+            expandNode(node);
+        }
+    }
+
+    @Override
+    public boolean performItemClick(View view, int position, long id) {
+        if (mFlattenedTree != null) {
+            int treePosition = position - getHeaderViewsCount();
+            if (treePosition >= 0 && treePosition < mFlattenedTree.getVisibleCount()) {
+                toggleNode(mFlattenedTree.getNode(treePosition));
+            }
+        }
+        return super.performItemClick(view, position, id);
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        Parcelable superState = super.onSaveInstanceState();
+        SavedState ss = new SavedState(superState);
+        ss.mExpandedNodes = new ExpandedPositionSet();
+        if (mFlattenedTree != null) {
+            for (int node = 0; node < mFlattenedTree.getNodeCount(); node++) {
+                if (isNodeExpanded(node)) {
+                    ss.mExpandedNodes.add(node);
+                }
+            }
+        } else if (mPendingExpandedNodes != null) {
+            ss.mExpandedNodes = mPendingExpandedNodes;
+        }
+        return ss;
+    }
+
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        SavedState ss = (SavedState) state;
+        if (mTreeAdapter != null && mTreeAdapter.getNodeCount() == mFlattenedTree.getNodeCount()) {
+            buildFlattenedTree(ss.mExpandedNodes);
+            mFlattenedTreeAdapter.notifyDataSetChanged();
+        } else {
+            mPendingExpandedNodes = ss.mExpandedNodes;
+        }
+        // restoring the flattened rows first lets the list restore its scroll position against them
+        super.onRestoreInstanceState(ss.getSuperState());
+    }
+
+    public interface TreeAdapter {
+        /**
+         * @return total number of nodes, visible or not
+         */
+        int getNodeCount();
+
+        /**
+         * @param node pre-order node index
+         * @return number of descendants of the node (children, grandchildren, ...), 0 for a leaf
+         */
+        int getSubtreeSize(int node);
+
+        /**
+         * @param node pre-order node index
+         * @return the node's id
+         */
+        long getNodeId(int node);
+
+        /**
+         * @return boolean determining if node ids are stable across changes to the tree
+         */
+        boolean hasStableIds();
+
+        /**
+         * @param node pre-order node index
+         * @return the node's view type, between 0 and {@link #getNodeViewTypeCount()} - 1
+         */
+        int getNodeViewType(int node);
+
+        int getNodeViewTypeCount();
+
+        /**
+         * @param node        pre-order node index
+         * @param depth       number of ancestors of the node
+         * @param expanded    boolean determining if the node has children and is expanded
+         * @param convertView recycled view of the same view type, may be null
+         * @param parent      the ExpandableTreeView
+         * @return the row view for the node
+         */
+        View getNodeView(int node, int depth, boolean expanded, View convertView, ViewGroup parent);
+    }
+
+    public interface OnNodeToggleListener {
+        void onNodeExpanded(ExpandableTreeView treeView, int node);
+
+        void onNodeCollapsed(ExpandableTreeView treeView, int node);
+    }
+
+    private class FlattenedTreeAdapter extends BaseAdapter {
+
+        @Override
+        public int getCount() {
+            return mFlattenedTree.getVisibleCount();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return mFlattenedTree.getNode(position);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mTreeAdapter.getNodeId(mFlattenedTree.getNode(position));
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return mTreeAdapter.hasStableIds();
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return mTreeAdapter.getNodeViewType(mFlattenedTree.getNode(position));
+        }
+
+        @Override
+        public int getViewTypeCount() {
+            return mTreeAdapter.getNodeViewTypeCount();
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            final int node = mFlattenedTree.getNode(position);
+            return mTreeAdapter.getNodeView(node, mFlattenedTree.getDepth(node), isNodeExpanded(node), convertView, parent);
+        }
+    }
+
+    static class SavedState extends BaseSavedState {
+        public static final Parcelable.Creator<SavedState> CREATOR =
+                new Parcelable.Creator<SavedState>() {
+                    @Override
+                    public SavedState createFromParcel(Parcel in) {
+                        return new SavedState(in);
+                    }
+
+                    @Override
+                    public SavedState[] newArray(int size) {
+                        return new SavedState[size];
+                    }
+                };
+
+        ExpandedPositionSet mExpandedNodes;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            mExpandedNodes = new ExpandedPositionSet(in.createLongArray());
+        }
+
+        @Override
+        public void writeToParcel(@NonNull Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeLongArray(mExpandedNodes.toWords());
+        }
+    }
+}
@@ -1,27 +1,45 @@
 package com.github.gfranks.expandable.view;
 
 import android.animation.Animator;
-import android.animation.AnimatorSet;
-import android.animation.ValueAnimator;
+import android.animation.AnimatorListenerAdapter;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.NonNull;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseIntArray;
 import android.view.Gravity;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+import android.widget.AbsListView;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
+import android.widget.ScrollView;
 
 public class ExpandableView extends LinearLayout implements View.OnClickListener {
 
     private static final int DEFAULT_ANIMATION_DURATION = 200;
+    /**
+     * Number of widths (e.g. portrait and landscape) whose expanded content height is kept
+     */
+    private static final int MAX_CACHED_CONTENT_WIDTHS = 2;
+    private static final int DEFAULT_PLACEHOLDER_COLOR = 0xFFEEEEEE;
 
     /**
      * boolean tracking expansion and collapse
@@ -80,6 +98,34 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
      * Listener for ExpandableView expand/collapse callbacks
      */
     private ExpandableViewListener mListener;
+    /**
+     * Frame source for all transitions, the shared ChoreographerAnimationClock unless one is set
+     */
+    private AnimationClock mAnimationClock;
+    /**
+     * Adapts transition durations to frame drops and load, null for every transition to run for mAnimationDuration
+     */
+    private MotionPolicy mMotionPolicy;
+    /**
+     * boolean determining if a ScrollView ancestor should be scrolled to keep expanding content on screen
+     */
+    private boolean mScrollParentOnExpand;
+    /**
+     * The ScrollView ancestor being scrolled while expanding, null when not scrolling a parent
+     */
+    private ScrollView mScrollingParent;
+    private Rect mScrollingParentRect = new Rect();
+    private ViewTreeObserver.OnPreDrawListener mScrollParentOnPreDraw = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            scrollParentToContent();
+            return true;
+        }
+    };
+    /**
+     * The running expand/collapse animation, null when idle
+     */
+    private ExpansionAnimator mAnimator;
     private Animator.AnimatorListener mExpandAnimationListener = new Animator.AnimatorListener() {
         @Override
         public void onAnimationStart(Animator animation) {
@@ -91,10 +137,18 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
 
         @Override
         public void onAnimationEnd(Animator animation) {
+            mAnimator = null;
             mIsCollapsed = false;
-            if (mListener != null) {
+            onExpandedStateChanged(true);
+            if (mListener != null && !mIsDetaching) {
                 mListener.didExpand(ExpandableView.this);
             }
+            updateContentVisibility();
+            if (mIsPlaceholderShown && !mIsContentLoading) {
+                // loading finished while expanding
+                crossFadeToContent();
+            }
+            finishLayoutPassCount();
         }
 
         @Override
@@ -115,13 +169,26 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
 
         @Override
         public void onAnimationEnd(Animator animation) {
+            mAnimator = null;
             if (mCollapsedContentHeight <= 0) {
                 getContentView().setVisibility(View.GONE);
             }
             mIsCollapsed = true;
-            if (mListener != null) {
+            onExpandedStateChanged(false);
+            if (mListener != null && !mIsDetaching) {
                 mListener.didCollapse(ExpandableView.this);
             }
+            updateContentVisibility();
+            if (mIsPlaceholderShown && !mIsContentLoading) {
+                hidePlaceholder();
+            }
+            if (mIsDetaching) {
+                // views are not removed, nor fragment transactions committed, while the window is torn down
+                mIsReleasePending = true;
+            } else {
+                releaseContentIfCollapsed();
+            }
+            finishLayoutPassCount();
         }
 
         @Override
@@ -133,6 +200,163 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
         }
     };
     private boolean mIsInflated;
+    /**
+     * Set while transitions are ended from onDetachedFromWindow, which snaps them without listener callbacks or
+     * releasing the content. A release skipped then is made on the next attach
+     */
+    private boolean mIsDetaching;
+    private boolean mIsReleasePending;
+    /**
+     * boolean determining if the content should be detached from the view hierarchy while fully collapsed
+     */
+    private boolean mReleaseContentWhenCollapsed;
+    private boolean mIsContentReleased;
+    /**
+     * The detached content (or overlay container holding the content) while released
+     */
+    private View mReleasedContent;
+    private ContentHost mContentHost;
+    /**
+     * boolean determining if collapsed content inflated from ev_contentLayout may be dropped under memory pressure
+     */
+    private boolean mTrimContentOnLowMemory;
+    private boolean mIsContentTrimmed;
+    private boolean mUseCachedExpandedHeight;
+    private boolean mIsTrimCallbackRegistered;
+    /**
+     * The last measured expanded content height, and the width it was measured at
+     */
+    private int mExpandedContentHeight;
+    private int mExpandedContentWidth;
+    /**
+     * Expanded content heights keyed by the width they were measured at, kept in the saved state
+     */
+    private SparseIntArray mExpandedContentHeights = new SparseIntArray(MAX_CACHED_CONTENT_WIDTHS);
+    /**
+     * When each cached width was last recorded, so the least recently used width is evicted. Widths restored from
+     * the saved state have no entry and are evicted first
+     */
+    private SparseIntArray mExpandedContentWidthUses = new SparseIntArray(MAX_CACHED_CONTENT_WIDTHS);
+    private int mExpandedContentWidthUseCount;
+    /**
+     * Fraction of a transition interrupted by the view being recreated, resumed before it is first drawn.
+     * -1 if there is none
+     */
+    private float mPendingTransitionFraction = -1;
+    private boolean mIsPendingTransitionExpanding;
+    private boolean mIsResumeTransitionRegistered;
+    private ViewTreeObserver.OnPreDrawListener mResumeTransition = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            return !resumePendingTransition();
+        }
+    };
+    /**
+     * boolean determining if an expanded content view should animate to its new height when its size changes
+     */
+    private boolean mAutoResizeContent;
+    private boolean mIsResizeCheckPending;
+    /**
+     * boolean set while this view writes the content height itself, so the resulting layout request is not
+     * mistaken for a content size change
+     */
+    private boolean mIsApplyingContentHeight;
+    private ExpansionAnimator mResizeAnimator;
+    private int mResizeTargetHeight;
+    private Runnable mResizeCheck = new Runnable() {
+        @Override
+        public void run() {
+            mIsResizeCheckPending = false;
+            animateToNaturalContentHeight();
+        }
+    };
+    /**
+     * boolean determining if the content's data is still loading, in which case the content expands to a placeholder
+     * of predicted height
+     */
+    private boolean mIsContentLoading;
+    private boolean mIsPlaceholderShown;
+    private float mPlaceholderAlpha;
+    private Drawable mPlaceholderDrawable;
+    private int mPlaceholderHeight;
+    /**
+     * Height predicted for the content when the current expansion started, 0 if there was no prediction
+     */
+    private int mPredictedContentHeight;
+    /**
+     * Height cached at this width before the current expansion measured the content, 0 if none was cached
+     */
+    private int mPreviousCachedContentHeight;
+    private Rect mPlaceholderBounds = new Rect();
+    /**
+     * Listener for the content entering and leaving the screen, and the last state reported to it
+     */
+    private ContentVisibilityListener mContentVisibilityListener;
+    private boolean mIsContentVisible;
+    private boolean mIsObservingContentVisibility;
+    private Rect mContentVisibleRect = new Rect();
+    private ViewTreeObserver.OnScrollChangedListener mContentVisibilityScrollObserver = new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+            updateContentVisibility();
+        }
+    };
+    private ViewTreeObserver.OnGlobalLayoutListener mContentVisibilityLayoutObserver = new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+            updateContentVisibility();
+        }
+    };
+    private ComponentCallbacks2 mTrimMemoryCallback = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                trimContentIfCollapsed();
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimContentIfCollapsed();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    };
+    /**
+     * Model the expanded state is bound to, and this view's key in it
+     */
+    private ExpansionStateModel mExpansionStateModel;
+    private long mExpansionStateKey;
+    private ExpansionStateModel.Observer mExpansionStateObserver = new ExpansionStateModel.Observer() {
+        @Override
+        public void onExpansionStateChanged(ExpansionStateModel model, long[] changedKeys) {
+            for (long key : changedKeys) {
+                if (key == mExpansionStateKey) {
+                    applyExpansionState(getWindowToken() != null && isShown());
+                    return;
+                }
+            }
+        }
+    };
+    /**
+     * Layout pass counters, only allocated while layout pass debugging is enabled
+     */
+    private LayoutPassStats mLayoutPassStats;
+    private OnLayoutPassListener mLayoutPassListener;
+    private boolean mDrawLayoutPassOverlay;
+    private Paint mLayoutPassOverlayPaint;
+    private boolean mIsCountingTransition;
+    private boolean mIsDrawing;
+    private ViewTreeObserver.OnGlobalLayoutListener mTraversalCounter = new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+            if (mLayoutPassStats != null) {
+                mLayoutPassStats.onTraversal();
+            }
+        }
+    };
 
     public ExpandableView(Context context) {
         super(context);
@@ -166,6 +390,17 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
         mAddOverlayWhenCollapsed = a.getBoolean(R.styleable.ExpandableView_ev_addOverlayWhenCollapsed, false);
         mGradientOverlayColor = a.getColor(R.styleable.ExpandableView_ev_gradientOverlayColor, Color.WHITE);
         mCustomContentOverlayResId = a.getResourceId(R.styleable.ExpandableView_ev_customContentOverlay, -1);
+        mReleaseContentWhenCollapsed = a.getBoolean(R.styleable.ExpandableView_ev_releaseContentWhenCollapsed, false);
+        mTrimContentOnLowMemory = a.getBoolean(R.styleable.ExpandableView_ev_trimContentOnLowMemory, false);
+        mAutoResizeContent = a.getBoolean(R.styleable.ExpandableView_ev_autoResizeContent, false);
+        mScrollParentOnExpand = a.getBoolean(R.styleable.ExpandableView_ev_scrollParentOnExpand, false);
+        mPlaceholderHeight = a.getDimensionPixelSize(R.styleable.ExpandableView_ev_placeholderHeight, 0);
+        if (a.hasValue(R.styleable.ExpandableView_ev_placeholder)) {
+            setPlaceholderDrawable(a.getDrawable(R.styleable.ExpandableView_ev_placeholder));
+        }
+        if (a.getBoolean(R.styleable.ExpandableView_ev_adaptiveMotion, false)) {
+            mMotionPolicy = MotionPolicy.getInstance(context);
+        }
         a.recycle();
     }
 
@@ -183,6 +418,13 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
         return !mIsCollapsed;
     }
 
+    /**
+     * @return boolean determining if the content view is currently expanding or collapsing
+     */
+    public boolean isAnimating() {
+        return mAnimator != null;
+    }
+
     /**
      * This method should be called when first inflating the view, if you would like to expand or collapse the content by default
      *
@@ -201,9 +443,21 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
             return;
         }
 
+        writeExpansionState(expanded);
+        if (!expanded && mIsContentTrimmed) {
+            mIsCollapsed = true;
+            return;
+        }
+
+        cancelResizeAnimation();
+        mIsApplyingContentHeight = true;
         mIsCollapsed = !expanded;
         if (expanded) {
-            getContentView().getLayoutParams().height = LayoutParams.WRAP_CONTENT;
+            ensureContentAttached();
+            final int predictedHeight = predictExpandedContentHeight();
+            getContentView().getLayoutParams().height = mIsContentLoading && predictedHeight > 0 ? predictedHeight
+                    : LayoutParams.WRAP_CONTENT;
+            applyPlaceholderAlpha();
             getContentView().setVisibility(View.VISIBLE);
             if (isAddOverlayWhenCollapsed()) {
                 if (getCustomContentOverlay() == null && mGradientOverlay != null) {
@@ -214,13 +468,61 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
             getContentView().getLayoutParams().height = mCollapsedContentHeight;
             if (mCollapsedContentHeight <= 0) {
                 getContentView().setVisibility(View.GONE);
-            } else if (isAddOverlayWhenCollapsed()) {
-                if (getCustomContentOverlay() == null && mGradientOverlay != null) {
-                    mGradientOverlay.setAlpha(1f);
+            } else {
+                // the collapsed height may have been set after the content was hidden
+                getContentView().setVisibility(View.VISIBLE);
+                if (isAddOverlayWhenCollapsed()) {
+                    if (getCustomContentOverlay() == null && mGradientOverlay != null) {
+                        mGradientOverlay.setAlpha(1f);
+                    }
                 }
             }
         }
         getContentView().requestLayout();
+        mIsApplyingContentHeight = false;
+        onExpandedStateChanged(expanded);
+        updateContentVisibility();
+        releaseContentIfCollapsed();
+    }
+
+    /**
+     * @return the AnimationClock driving expand/collapse transitions
+     * @see #setAnimationClock(AnimationClock)
+     */
+    public AnimationClock getAnimationClock() {
+        if (mAnimationClock == null) {
+            mAnimationClock = ChoreographerAnimationClock.getInstance(getContext());
+        }
+        return mAnimationClock;
+    }
+
+    /**
+     * Transitions already running keep the clock they were started with
+     *
+     * @param animationClock AnimationClock driving expand/collapse, overlay and resize transitions, null for the
+     *                       shared default
+     */
+    public void setAnimationClock(AnimationClock animationClock) {
+        mAnimationClock = animationClock;
+    }
+
+    /**
+     * @return the MotionPolicy adapting transition durations, null if transitions always run for the animation duration
+     * @see #setMotionPolicy(MotionPolicy)
+     */
+    public MotionPolicy getMotionPolicy() {
+        return mMotionPolicy;
+    }
+
+    /**
+     * Listener callbacks are made in the same order whether a transition is animated, shortened or snapped
+     *
+     * @param motionPolicy MotionPolicy that shortens or snaps transitions when frames are being dropped, many views
+     *                     toggle at once or the device is in power save mode, null to always use the animation duration
+     * @see MotionPolicy#getInstance(Context)
+     */
+    public void setMotionPolicy(MotionPolicy motionPolicy) {
+        mMotionPolicy = motionPolicy;
     }
 
     /**
@@ -257,8 +559,8 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
         if (getHeaderView() != null) {
             getHeaderView().setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
         }
-        if (getContentView() != null) {
-            getContentView().setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
+        if (mContentView != null) {
+            mContentView.setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
         }
         if (getFooterView() != null) {
             getFooterView().setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
@@ -282,6 +584,14 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
         mCollapsedContentHeight = collapsedContentHeight;
     }
 
+    /**
+     * @return the height the content view last measured to when expanding, 0 if it has not been measured
+     * @see #measureExpandedContentHeight()
+     */
+    public int getExpandedContentHeight() {
+        return mExpandedContentHeight;
+    }
+
     /**
      * @return boolean if a view is overlaid on top of the content view
      * @see #setAddOverlayWhenCollapsed(boolean)
@@ -374,196 +684,792 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
     }
 
     /**
-     * @return the header view
-     * @see #setHeaderView(int)
-     * @see #setHeaderView(android.view.View)
+     * @return boolean determining if the content is detached from the view hierarchy while fully collapsed
+     * @see #setReleaseContentWhenCollapsed(boolean)
      */
-    public View getHeaderView() {
-        return mHeaderView;
+    public boolean isReleaseContentWhenCollapsed() {
+        return mReleaseContentWhenCollapsed;
     }
 
     /**
-     * @param headerLayoutResId layout resource id to be inflated as the header view
-     * @see #setHeaderView(android.view.View)
+     * When enabled, and the collapsed content height is 0, the content view is detached from the window after
+     * collapsing (stopping its animations and observers) and reattached before it is measured to expand.
+     * Set a {@link ContentHost} to also release resources that outlive the views, such as a hosted fragment
+     *
+     * @param releaseContentWhenCollapsed boolean determining if the content should be detached while fully collapsed
+     * @see #setContentHost(ContentHost)
      */
-    public void setHeaderView(int headerLayoutResId) {
-        if (getHeaderView() != null) {
-            removeView(getHeaderView());
-        }
-        inflate(getContext(), headerLayoutResId, this);
-        if (getChildCount() > 1) {
-            View child = getChildAt(getChildCount() - 1);
-            removeView(child);
-            addView(child, 0);
+    public void setReleaseContentWhenCollapsed(boolean releaseContentWhenCollapsed) {
+        mReleaseContentWhenCollapsed = releaseContentWhenCollapsed;
+        if (mReleaseContentWhenCollapsed) {
+            releaseContentIfCollapsed();
+        } else {
+            ensureContentAttached();
         }
     }
 
     /**
-     * @param headerView header view to be added to the ExpandableView
+     * @return boolean determining if collapsed content may be dropped under memory pressure
+     * @see #setTrimContentOnLowMemory(boolean)
      */
-    public void setHeaderView(View headerView) {
-        if (getHeaderView() != null) {
-            removeView(getHeaderView());
+    public boolean isTrimContentOnLowMemory() {
+        return mTrimContentOnLowMemory;
+    }
+
+    /**
+     * When enabled, a fully collapsed (collapsed content height of 0) content view inflated from ev_contentLayout
+     * is dropped entirely when the system reports memory pressure. Content is only dropped while a
+     * {@link ContentHost} is set, since the host is asked to bind it again when it is inflated on the next expand
+     *
+     * @param trimContentOnLowMemory boolean determining if collapsed content may be dropped under memory pressure
+     */
+    public void setTrimContentOnLowMemory(boolean trimContentOnLowMemory) {
+        mTrimContentOnLowMemory = trimContentOnLowMemory;
+        if (mTrimContentOnLowMemory && getWindowToken() != null) {
+            registerTrimMemoryCallback();
+        } else if (!mTrimContentOnLowMemory) {
+            unregisterTrimMemoryCallback();
         }
-        addView(headerView, 0);
-        mHeaderView = headerView;
-        mHeaderView.setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
     }
 
     /**
-     * @return the content view
-     * @see #setContentView(int)
-     * @see #setContentView(android.view.View)
+     * @return boolean determining if the expanded content animates to its new height when its size changes
+     * @see #setAutoResizeContent(boolean)
      */
-    public View getContentView() {
-        return mContentView;
+    public boolean isAutoResizeContent() {
+        return mAutoResizeContent;
     }
 
     /**
-     * @param contentLayoutResId layout resource id to be inflated as the content view
-     * @see #setContentView(android.view.View)
+     * When enabled, any layout request from within the expanded content (e.g. after data loads) is checked once
+     * per frame and, if the content's natural height changed, the content animates to it. Several changes in the
+     * same frame are coalesced, and a change during a running resize retargets it from the current height
+     *
+     * @param autoResizeContent boolean determining if the expanded content should animate to its new height
      */
-    public void setContentView(int contentLayoutResId) {
-        if (getContentView() != null) {
-            removeView(getContentView());
-        }
-        inflate(getContext(), contentLayoutResId, this);
-        if (getChildCount() > 2) {
-            View child = getChildAt(getChildCount() - 1);
-            removeView(child);
-            addView(child, 1);
+    public void setAutoResizeContent(boolean autoResizeContent) {
+        mAutoResizeContent = autoResizeContent;
+        if (!mAutoResizeContent) {
+            removeCallbacks(mResizeCheck);
+            mIsResizeCheckPending = false;
         }
     }
 
     /**
-     * @param contentView content view to be added to the ExpandableView
-     * @throws java.lang.IllegalStateException if header has not been added
+     * @return boolean determining if a ScrollView ancestor is scrolled to keep the content on screen while expanding
+     * @see #setScrollParentOnExpand(boolean)
      */
-    public void setContentView(View contentView) {
-        if (getContentView() != null) {
-            removeView(getContentView());
-        }
-        addView(contentView);
-        mContentView = contentView;
-        mContentView.setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
+    public boolean isScrollParentOnExpand() {
+        return mScrollParentOnExpand;
+    }
 
-        if (mIsInflated && isAddOverlayWhenCollapsed()) {
-            ensureContentOverlayAdded();
+    /**
+     * While expanding, the nearest ScrollView ancestor is scrolled (never further than the top of this view) after
+     * each frame's layout and before it is drawn, so the content grows into view as part of the same transition
+     * rather than being scrolled to afterwards. Views in a list are scrolled by the list and are not affected
+     *
+     * @param scrollParentOnExpand boolean determining if a ScrollView ancestor should be scrolled to keep the
+     *                             content on screen while expanding
+     */
+    public void setScrollParentOnExpand(boolean scrollParentOnExpand) {
+        mScrollParentOnExpand = scrollParentOnExpand;
+        if (!scrollParentOnExpand) {
+            stopScrollingParent();
         }
     }
 
     /**
-     * @return the footer view
-     * @see #setFooterView(int)
-     * @see #setFooterView(android.view.View)
+     * @return boolean determining if the content's data is still loading
+     * @see #setContentLoading(boolean)
      */
-    public View getFooterView() {
-        return mFooterView;
+    public boolean isContentLoading() {
+        return mIsContentLoading;
     }
 
     /**
-     * Setting a footer view is not required
+     * Set while the content's data is loading asynchronously, before expanding or from
+     * {@link ExpandableViewListener#willExpand(ExpandableView)} (which comes after the content was measured, so
+     * setting it before expanding saves a measure). The content then expands to the height it last
+     * expanded to at this width (or the placeholder height if it has not expanded yet) without being measured, and
+     * is hidden behind the placeholder. Once loading is cleared the content is measured once and cross-fades in from
+     * the placeholder as the height animates to the content's real height
      *
-     * @param footerLayoutResId layout resource id to be inflated as the footer view
-     * @see #setFooterView(android.view.View)
+     * @param contentLoading boolean determining if the content's data is still loading
+     * @see #setPlaceholderHeight(int)
+     * @see #setPlaceholderDrawable(Drawable)
      */
-    public void setFooterView(int footerLayoutResId) {
-        if (getFooterView() != null) {
-            removeView(getFooterView());
+    public void setContentLoading(boolean contentLoading) {
+        if (mIsContentLoading == contentLoading) {
+            return;
+        }
+
+        mIsContentLoading = contentLoading;
+        if (contentLoading) {
+            cancelResizeAnimation();
+            showPlaceholder();
+            if (mAnimator != null && mIsCollapsed && mAnimator.getAnimatedFraction() == 0f
+                    && mPredictedContentHeight > 0) {
+                // loading started from willExpand, before the first frame used the measured height. The content was
+                // measured before it was loaded, so its height is not kept for the next expansion
+                mAnimator.setToValue(mPredictedContentHeight);
+                mExpandedContentHeight = mPredictedContentHeight;
+                if (mPreviousCachedContentHeight > 0) {
+                    mExpandedContentHeights.put(mExpandedContentWidth, mPreviousCachedContentHeight);
+                } else {
+                    mExpandedContentHeights.delete(mExpandedContentWidth);
+                }
+            }
+        } else if (mIsPlaceholderShown && !isAnimating()) {
+            if (isExpanded() && getWindowToken() != null) {
+                crossFadeToContent();
+            } else {
+                if (isExpanded() && mContentView != null) {
+                    // no frames to animate with, so lay the content out at its own height
+                    mContentView.getLayoutParams().height = LayoutParams.WRAP_CONTENT;
+                    mContentView.requestLayout();
+                }
+                hidePlaceholder();
+            }
         }
-        inflate(getContext(), footerLayoutResId, this);
     }
 
     /**
-     * @param footerView footer view to be added to the ExpandableView
+     * @return the height (in px) expanded to while loading if the content has not expanded at this width before
+     * @see #setPlaceholderHeight(int)
      */
-    public void setFooterView(View footerView) {
-        if (getFooterView() != null) {
-            removeView(getFooterView());
-        }
-        addView(footerView, getChildCount());
-        mFooterView = footerView;
-        mFooterView.setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
+    public int getPlaceholderHeight() {
+        return mPlaceholderHeight;
     }
 
     /**
-     * Expands the content view
+     * @param placeholderHeight The height (in px) expanded to while loading if the content has not expanded at this
+     *                          width before. If 0 the content is measured as it is
+     * @see #setContentLoading(boolean)
      */
-    public void expandContent() {
-        if (isExpanded() || (mListener != null && !mListener.canExpand(this))) {
-            return;
-        }
+    public void setPlaceholderHeight(int placeholderHeight) {
+        mPlaceholderHeight = placeholderHeight;
+    }
 
-        getContentView().measure(MeasureSpec.makeMeasureSpec(getMeasuredWidth(), MeasureSpec.AT_MOST),
-                MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
-        final int fromHeight = getContentView().getHeight();
-        final int toHeight = getContentView().getMeasuredHeight();
-
-        Animator animator = getHeightAnimator(fromHeight, toHeight);
-        animator.addListener(mExpandAnimationListener);
-        if (isAddOverlayWhenCollapsed() && (mGradientOverlay != null || getCustomContentOverlay() != null)) {
-            AnimatorSet set = new AnimatorSet();
-            set.playTogether(animator, getGradientOverlayAlphaAnimator(1f, 0f));
-            set.start();
-        } else {
-            animator.start();
+    /**
+     * @return the Drawable drawn in place of the content while loading
+     * @see #setPlaceholderDrawable(Drawable)
+     */
+    public Drawable getPlaceholderDrawable() {
+        if (mPlaceholderDrawable == null) {
+            setPlaceholderDrawable(new ColorDrawable(DEFAULT_PLACEHOLDER_COLOR));
         }
+        return mPlaceholderDrawable;
     }
 
     /**
-     * Collapses the content view
+     * A drawable rather than a view, so showing the placeholder adds no layout work. It is stretched to the content's
+     * bounds; skeleton rows can be drawn with a layer-list
+     *
+     * @param placeholderDrawable Drawable drawn in place of the content while loading
+     * @see #setContentLoading(boolean)
      */
-    public void collapseContent() {
-        if (!isExpanded() || (mListener != null && !mListener.canCollapse(this))) {
-            return;
+    public void setPlaceholderDrawable(Drawable placeholderDrawable) {
+        if (mPlaceholderDrawable != null) {
+            mPlaceholderDrawable.setCallback(null);
+        }
+        mPlaceholderDrawable = placeholderDrawable != null ? placeholderDrawable.mutate() : null;
+        if (mPlaceholderDrawable != null) {
+            mPlaceholderDrawable.setCallback(this);
         }
+        invalidate();
+    }
 
-        final int fromHeight = getContentView().getMeasuredHeight();
-        final int toHeight = mCollapsedContentHeight;
+    /**
+     * @return boolean determining if the content is expanded and at least partially on screen
+     * @see #setContentVisibilityListener(ContentVisibilityListener)
+     */
+    public boolean isContentVisible() {
+        return mIsContentVisible;
+    }
 
-        if (toHeight >= fromHeight) {
-            return;
+    /**
+     * Content is considered visible while it is expanded, attached to a visible window and at least partially
+     * on screen. Use this to load heavy content (e.g. decode images) only when needed and to release it afterwards
+     *
+     * @param listener ContentVisibilityListener that will receive callbacks as the content becomes visible or hidden
+     */
+    public void setContentVisibilityListener(ContentVisibilityListener listener) {
+        mContentVisibilityListener = listener;
+        if (mContentVisibilityListener != null && getWindowToken() != null) {
+            startObservingContentVisibility();
+        } else if (mContentVisibilityListener == null) {
+            stopObservingContentVisibility();
         }
+        updateContentVisibility();
+    }
 
-        Animator animator = getHeightAnimator(fromHeight, toHeight);
-        animator.addListener(mCollapseAnimationListener);
-        if (isAddOverlayWhenCollapsed() && (mGradientOverlay != null || getCustomContentOverlay() != null)) {
-            AnimatorSet set = new AnimatorSet();
-            set.playTogether(animator, getGradientOverlayAlphaAnimator(0f, 1f));
-            set.start();
-        } else {
-            animator.start();
-        }
+    /**
+     * @return the ExpansionStateModel this view is bound to, null if its state is only held by the view
+     * @see #setExpansionStateModel(ExpansionStateModel, long)
+     */
+    public ExpansionStateModel getExpansionStateModel() {
+        return mExpansionStateModel;
     }
 
-    @Override
-    public void onClick(View v) {
-        if (mDisableExpandCollapseOnClick) {
-            return;
+    /**
+     * Binds the expanded state to an item of the model. The view immediately takes the item's state, expanding or
+     * collapsing writes to the model, and changes made to the model (from any thread) are animated while the view
+     * is shown. Changes made while a transition is running, or vetoed by the ExpandableViewListener, are not applied
+     *
+     * @param model ExpansionStateModel to bind to, null to unbind
+     * @param key   stable id of the item this view shows
+     */
+    public void setExpansionStateModel(ExpansionStateModel model, long key) {
+        if (mExpansionStateModel != null) {
+            mExpansionStateModel.unregisterObserver(mExpansionStateObserver);
         }
 
-        if (v == getHeaderView() || v == getFooterView() || (v == getContentView() && mCollapseOnContentClick)) {
-            if (isExpanded()) {
-                collapseContent();
-            } else {
-                expandContent();
+        mExpansionStateModel = model;
+        mExpansionStateKey = key;
+        if (model != null) {
+            if (getWindowToken() != null) {
+                model.registerObserver(mExpansionStateObserver);
             }
+            applyExpansionState(false);
         }
     }
 
-    @Override
-    public Parcelable onSaveInstanceState() {
-        Parcelable superState = super.onSaveInstanceState();
-        SavedState ss = new SavedState(superState);
-        ss.mIsCollapsed = mIsCollapsed;
-        return ss;
+    private void applyExpansionState(boolean animate) {
+        final boolean expanded = mExpansionStateModel.isExpanded(mExpansionStateKey);
+        if (isAnimating() || expanded == isExpanded() || getContentView() == null) {
+            return;
+        }
+        setExpanded(expanded, animate);
     }
 
-    @Override
-    public void onRestoreInstanceState(Parcelable state) {
-        SavedState ss = (SavedState) state;
-        super.onRestoreInstanceState(ss.getSuperState());
-        setExpanded(!ss.mIsCollapsed, false);
+    /**
+     * @return the ContentHost notified when content is attached and released
+     * @see #setContentHost(ContentHost)
+     */
+    public ContentHost getContentHost() {
+        return mContentHost;
+    }
+
+    /**
+     * @param contentHost ContentHost that will be asked to attach content before expanding and release it after collapsing
+     * @see #setReleaseContentWhenCollapsed(boolean)
+     */
+    public void setContentHost(ContentHost contentHost) {
+        mContentHost = contentHost;
+    }
+
+    /**
+     * @return boolean determining if measure/layout passes are being counted
+     * @see #setLayoutPassDebugEnabled(boolean)
+     */
+    public boolean isLayoutPassDebugEnabled() {
+        return mLayoutPassStats != null;
+    }
+
+    /**
+     * Debugging aid that counts onMeasure/onLayout/requestLayout calls on this view along with the window's
+     * layout traversals during each expand/collapse transition. Counts are reported when the transition ends.
+     *
+     * @param layoutPassDebugEnabled boolean determining if measure/layout passes should be counted
+     * @see #setOnLayoutPassListener(OnLayoutPassListener)
+     * @see #setDrawLayoutPassOverlay(boolean)
+     */
+    public void setLayoutPassDebugEnabled(boolean layoutPassDebugEnabled) {
+        if (isLayoutPassDebugEnabled() == layoutPassDebugEnabled) {
+            return;
+        }
+
+        if (layoutPassDebugEnabled) {
+            mLayoutPassStats = new LayoutPassStats();
+        } else {
+            stopCountingTraversals();
+            mLayoutPassStats = null;
+        }
+        invalidate();
+    }
+
+    /**
+     * @return the counts recorded for the current (or last) transition, null if layout pass debugging is disabled
+     */
+    public LayoutPassStats getLayoutPassStats() {
+        return mLayoutPassStats;
+    }
+
+    /**
+     * @param listener OnLayoutPassListener that will receive the counts recorded during each transition
+     * @see #setLayoutPassDebugEnabled(boolean)
+     */
+    public void setOnLayoutPassListener(OnLayoutPassListener listener) {
+        mLayoutPassListener = listener;
+    }
+
+    /**
+     * @return boolean determining if the recorded counts are drawn over this view
+     * @see #setDrawLayoutPassOverlay(boolean)
+     */
+    public boolean isDrawLayoutPassOverlay() {
+        return mDrawLayoutPassOverlay;
+    }
+
+    /**
+     * NOTE: Please #setLayoutPassDebugEnabled(true) before you call
+     *
+     * @param drawLayoutPassOverlay boolean determining if the recorded counts should be drawn over this view
+     */
+    public void setDrawLayoutPassOverlay(boolean drawLayoutPassOverlay) {
+        mDrawLayoutPassOverlay = drawLayoutPassOverlay;
+        if (mDrawLayoutPassOverlay && mLayoutPassOverlayPaint == null) {
+            mLayoutPassOverlayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mLayoutPassOverlayPaint.setColor(Color.MAGENTA);
+            mLayoutPassOverlayPaint.setTextSize(12 * getResources().getDisplayMetrics().scaledDensity);
+        }
+        invalidate();
+    }
+
+    /**
+     * @return the header view
+     * @see #setHeaderView(int)
+     * @see #setHeaderView(android.view.View)
+     */
+    public View getHeaderView() {
+        return mHeaderView;
+    }
+
+    /**
+     * @param headerLayoutResId layout resource id to be inflated as the header view
+     * @see #setHeaderView(android.view.View)
+     */
+    public void setHeaderView(int headerLayoutResId) {
+        ExpandableViewTrace.beginSection(ExpandableViewTrace.SET_HEADER_VIEW);
+        try {
+            if (getHeaderView() != null) {
+                removeView(getHeaderView());
+            }
+            inflate(getContext(), headerLayoutResId, this);
+            if (getChildCount() > 1) {
+                View child = getChildAt(getChildCount() - 1);
+                removeView(child);
+                addView(child, 0);
+            }
+        } finally {
+            ExpandableViewTrace.endSection();
+        }
+    }
+
+    /**
+     * @param headerView header view to be added to the ExpandableView
+     */
+    public void setHeaderView(View headerView) {
+        if (getHeaderView() != null) {
+            removeView(getHeaderView());
+        }
+        addView(headerView, 0);
+        mHeaderView = headerView;
+        mHeaderView.setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
+    }
+
+    /**
+     * @return the content view. Content trimmed under memory pressure is inflated again, and the
+     * {@link ContentHost} asked to attach it, so this is not null once content has been set
+     * @see #setContentView(int)
+     * @see #setContentView(android.view.View)
+     * @see #setTrimContentOnLowMemory(boolean)
+     */
+    public View getContentView() {
+        if (mIsContentTrimmed) {
+            ensureContentAttached();
+        }
+        return mContentView;
+    }
+
+    /**
+     * @return the content view without inflating it again if it was trimmed, in which case it is null
+     */
+    View peekContentView() {
+        return mContentView;
+    }
+
+    /**
+     * @param contentLayoutResId layout resource id to be inflated as the content view
+     * @see #setContentView(android.view.View)
+     */
+    public void setContentView(int contentLayoutResId) {
+        ExpandableViewTrace.beginSection(ExpandableViewTrace.SET_CONTENT_VIEW);
+        try {
+            ensureContentAttached();
+            if (getContentView() != null) {
+                removeView(getContentView());
+            }
+            inflate(getContext(), contentLayoutResId, this);
+            if (getChildCount() > 2) {
+                View child = getChildAt(getChildCount() - 1);
+                removeView(child);
+                addView(child, 1);
+            }
+        } finally {
+            ExpandableViewTrace.endSection();
+        }
+    }
+
+    /**
+     * @param contentView content view to be added to the ExpandableView
+     * @throws java.lang.IllegalStateException if header has not been added
+     */
+    public void setContentView(View contentView) {
+        ensureContentAttached();
+        if (getContentView() != null) {
+            removeView(getContentView());
+        }
+        addView(contentView);
+        mContentView = contentView;
+        mContentView.setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
+
+        if (mIsInflated && isAddOverlayWhenCollapsed()) {
+            ensureContentOverlayAdded();
+        }
+    }
+
+    /**
+     * @return the footer view
+     * @see #setFooterView(int)
+     * @see #setFooterView(android.view.View)
+     */
+    public View getFooterView() {
+        return mFooterView;
+    }
+
+    /**
+     * Setting a footer view is not required
+     *
+     * @param footerLayoutResId layout resource id to be inflated as the footer view
+     * @see #setFooterView(android.view.View)
+     */
+    public void setFooterView(int footerLayoutResId) {
+        if (getFooterView() != null) {
+            removeView(getFooterView());
+        }
+        inflate(getContext(), footerLayoutResId, this);
+    }
+
+    /**
+     * @param footerView footer view to be added to the ExpandableView
+     */
+    public void setFooterView(View footerView) {
+        if (getFooterView() != null) {
+            removeView(getFooterView());
+        }
+        addView(footerView, getChildCount());
+        mFooterView = footerView;
+        mFooterView.setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
+    }
+
+    /**
+     * Expands the content view
+     */
+    public void expandContent() {
+        expandContent(0f);
+    }
+
+    /**
+     * @param startFraction elapsed fraction of the transition to start from
+     */
+    private void expandContent(float startFraction) {
+        if (isExpanded() || (mListener != null && !mListener.canExpand(this))) {
+            return;
+        }
+
+        ExpandableViewTrace.beginSection(ExpandableViewTrace.EXPAND_CONTENT);
+        try {
+            writeExpansionState(true);
+            ensureContentAttached();
+            applyPlaceholderAlpha();
+            startLayoutPassCount();
+            final int fromHeight = getContentView().getHeight();
+            // predicted before measuring, as measuring replaces the cached height
+            mPreviousCachedContentHeight = mExpandedContentHeights.get(getMeasuredWidth());
+            mPredictedContentHeight = predictExpandedContentHeight();
+            final int toHeight;
+            if (mIsContentLoading && mPredictedContentHeight > 0) {
+                mExpandedContentWidth = getMeasuredWidth();
+                mExpandedContentHeight = mPredictedContentHeight;
+                toHeight = mPredictedContentHeight;
+            } else {
+                toHeight = measureExpandedContentHeight();
+            }
+
+            mAnimator = getHeightAnimator(fromHeight, toHeight, true);
+            mAnimator.setStartFraction(startFraction);
+            mAnimator.addListener(mExpandAnimationListener);
+            startScrollingParent();
+            mAnimator.start();
+        } finally {
+            ExpandableViewTrace.endSection();
+        }
+    }
+
+    /**
+     * Collapses the content view
+     */
+    public void collapseContent() {
+        collapseContent(0f);
+    }
+
+    /**
+     * @param startFraction elapsed fraction of the transition to start from
+     */
+    private void collapseContent(float startFraction) {
+        if (!isExpanded() || (mListener != null && !mListener.canCollapse(this))) {
+            return;
+        }
+
+        final int fromHeight = getContentView().getMeasuredHeight();
+        final int toHeight = mCollapsedContentHeight;
+
+        if (toHeight >= fromHeight) {
+            return;
+        }
+
+        ExpandableViewTrace.beginSection(ExpandableViewTrace.COLLAPSE_CONTENT);
+        try {
+            writeExpansionState(false);
+            cancelResizeAnimation();
+            stopScrollingParent();
+            startLayoutPassCount();
+            mAnimator = getHeightAnimator(fromHeight, toHeight, false);
+            mAnimator.setStartFraction(startFraction);
+            mAnimator.addListener(mCollapseAnimationListener);
+            mAnimator.start();
+        } finally {
+            ExpandableViewTrace.endSection();
+        }
+    }
+
+    @Override
+    public void onClick(View v) {
+        if (mDisableExpandCollapseOnClick) {
+            return;
+        }
+
+        if (v == getHeaderView() || v == getFooterView() || (v == getContentView() && mCollapseOnContentClick)) {
+            if (isExpanded()) {
+                collapseContent();
+            } else {
+                expandContent();
+            }
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mLayoutPassStats != null) {
+            mLayoutPassStats.onMeasure();
+        }
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (mLayoutPassStats != null) {
+            mLayoutPassStats.onLayout();
+        }
+        super.onLayout(changed, l, t, r, b);
+    }
+
+    @Override
+    public void requestLayout() {
+        // may be called by the super constructor before any fields are initialized
+        if (mLayoutPassStats != null) {
+            mLayoutPassStats.onRequestLayout(mIsDrawing);
+        }
+        if (mAutoResizeContent && !mIsApplyingContentHeight && !mIsResizeCheckPending && !mIsPlaceholderShown
+                && isExpanded() && !isAnimating()) {
+            mIsResizeCheckPending = true;
+            ViewCompat.postOnAnimation(this, mResizeCheck);
+        }
+        super.requestLayout();
+    }
+
+    @Override
+    protected void dispatchDraw(@NonNull Canvas canvas) {
+        mIsDrawing = true;
+        try {
+            super.dispatchDraw(canvas);
+        } finally {
+            mIsDrawing = false;
+        }
+
+        if (mIsPlaceholderShown && mPlaceholderAlpha > 0f && !mIsContentReleased && getContentView() != null
+                && getContentView().getVisibility() == View.VISIBLE) {
+            View contentView = getContentView();
+            Drawable placeholder = getPlaceholderDrawable();
+            mPlaceholderBounds.set(0, 0, contentView.getWidth(), contentView.getHeight());
+            offsetDescendantRectToMyCoords(contentView, mPlaceholderBounds);
+            placeholder.setBounds(mPlaceholderBounds);
+            placeholder.setAlpha((int) (255 * mPlaceholderAlpha));
+            placeholder.draw(canvas);
+        }
+
+        if (mDrawLayoutPassOverlay && mLayoutPassStats != null) {
+            canvas.drawText(mLayoutPassStats.toString(), getPaddingLeft(),
+                    getPaddingTop() - mLayoutPassOverlayPaint.ascent(), mLayoutPassOverlayPaint);
+        }
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == mPlaceholderDrawable || super.verifyDrawable(who);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mIsReleasePending) {
+            mIsReleasePending = false;
+            releaseContentIfCollapsed();
+        }
+        if (mTrimContentOnLowMemory) {
+            registerTrimMemoryCallback();
+        }
+        if (mContentVisibilityListener != null) {
+            startObservingContentVisibility();
+        }
+        if (mExpansionStateModel != null) {
+            mExpansionStateModel.registerObserver(mExpansionStateObserver);
+            applyExpansionState(false);
+        }
+        if (mPendingTransitionFraction >= 0) {
+            registerResumeTransition();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // snap to the target state rather than keep writing layout params on a detached view
+        mIsDetaching = true;
+        try {
+            endTransitions();
+        } finally {
+            mIsDetaching = false;
+        }
+        removeCallbacks(mResizeCheck);
+        mIsResizeCheckPending = false;
+        stopScrollingParent();
+        unregisterResumeTransition();
+        stopCountingTraversals();
+        unregisterTrimMemoryCallback();
+        stopObservingContentVisibility();
+        if (mExpansionStateModel != null) {
+            mExpansionStateModel.unregisterObserver(mExpansionStateObserver);
+        }
+        if (mIsContentVisible) {
+            // the window token is still set while detaching, so this cannot go through updateContentVisibility()
+            mIsContentVisible = false;
+            mContentVisibilityListener.onContentHidden(this);
+        }
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateContentVisibility();
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        Parcelable superState = super.onSaveInstanceState();
+        SavedState ss = new SavedState(superState);
+        ss.mIsCollapsed = mIsCollapsed;
+        ss.mExpandedContentHeights = mExpandedContentHeights.clone();
+        if (mAnimator != null && mAnimator.isRunning()) {
+            // the expanded state only changes once a transition ends, so an expanding view is still collapsed
+            ss.mTransitionFraction = mAnimator.getAnimatedFraction();
+            ss.mIsTransitionExpanding = mIsCollapsed;
+        } else if (mPendingTransitionFraction >= 0) {
+            ss.mTransitionFraction = mPendingTransitionFraction;
+            ss.mIsTransitionExpanding = mIsPendingTransitionExpanding;
+        }
+        return ss;
+    }
+
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
+        mExpandedContentHeights = ss.mExpandedContentHeights.clone();
+        mExpandedContentWidthUses.clear();
+        if (mExpansionStateModel != null) {
+            // the model outlives this view's saved state
+            applyExpansionState(false);
+            return;
+        }
+
+        if (mIsCollapsed != ss.mIsCollapsed || isAnimating()) {
+            setExpanded(!ss.mIsCollapsed, false);
+        }
+        if (ss.mTransitionFraction >= 0) {
+            // continued from the pre-draw of the first layout, once the width is known
+            mPendingTransitionFraction = ss.mTransitionFraction;
+            mIsPendingTransitionExpanding = ss.mIsTransitionExpanding;
+            if (getWindowToken() != null) {
+                registerResumeTransition();
+            }
+        }
+    }
+
+    /**
+     * Jumps any running expand/collapse or resize transition to its end state. Also used by ExpandableListView for
+     * rows moved to its scrap heap, which are detached from the list without being detached from the window
+     */
+    void endTransitions() {
+        if (mAnimator != null) {
+            mAnimator.end();
+            mAnimator = null;
+        }
+        if (mResizeAnimator != null) {
+            mResizeAnimator.end();
+        }
+    }
+
+    private void registerResumeTransition() {
+        if (!mIsResumeTransitionRegistered) {
+            mIsResumeTransitionRegistered = true;
+            getViewTreeObserver().addOnPreDrawListener(mResumeTransition);
+        }
+    }
+
+    private void unregisterResumeTransition() {
+        if (mIsResumeTransitionRegistered) {
+            mIsResumeTransitionRegistered = false;
+            getViewTreeObserver().removeOnPreDrawListener(mResumeTransition);
+        }
+    }
+
+    /**
+     * @return boolean determining if a transition was resumed, in which case the current draw should be skipped as
+     * the content height has changed
+     */
+    private boolean resumePendingTransition() {
+        unregisterResumeTransition();
+        final float fraction = mPendingTransitionFraction;
+        mPendingTransitionFraction = -1;
+        if (fraction < 0 || isAnimating() || isExpanded() == mIsPendingTransitionExpanding) {
+            return false;
+        }
+
+        if (mIsPendingTransitionExpanding) {
+            // the content was measured at this width before the view was recreated
+            mUseCachedExpandedHeight = true;
+            try {
+                expandContent(fraction);
+            } finally {
+                // not measured if the expand was vetoed
+                mUseCachedExpandedHeight = false;
+            }
+        } else {
+            collapseContent(fraction);
+        }
+        return isAnimating();
     }
 
     @Override
@@ -623,6 +1529,16 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
     }
 
     private void ensureContentOverlayAdded() {
+        ExpandableViewTrace.beginSection(ExpandableViewTrace.ENSURE_CONTENT_OVERLAY_ADDED);
+        try {
+            ensureContentAttached();
+            addContentOverlay();
+        } finally {
+            ExpandableViewTrace.endSection();
+        }
+    }
+
+    private void addContentOverlay() {
         if (getContentView() == null || mCollapsedContentHeight == 0) {
             Log.w(getClass().getName(), "Inflation may be in progress but -> Gradient overlay is " +
                     "only supported if you provide a collapsed view height greater than 0");
@@ -665,6 +1581,7 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
     }
 
     private void ensureContentOverlayRemoved() {
+        ensureContentAttached();
         try {
             ((FrameLayout) getChildAt(1)).removeView(getContentView());
             removeViewAt(1);
@@ -674,33 +1591,426 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
         }
     }
 
-    private Animator getHeightAnimator(int fromHeight, int toHeight) {
-        ValueAnimator animator = ValueAnimator.ofInt(fromHeight, toHeight);
-        animator.setDuration(mAnimationDuration);
-        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+    /**
+     * Called once the content has finished expanding or collapsing, before listeners are notified
+     *
+     * @param expanded boolean determining if the content is now expanded
+     */
+    protected void onExpandedStateChanged(boolean expanded) {
+    }
+
+    private void updateContentVisibility() {
+        if (mContentVisibilityListener == null) {
+            mIsContentVisible = false;
+            return;
+        }
+
+        View contentView = mContentView;
+        final boolean visible = isExpanded() && getWindowToken() != null && getWindowVisibility() == View.VISIBLE
+                && contentView != null && contentView.isShown() && contentView.getGlobalVisibleRect(mContentVisibleRect);
+        if (visible == mIsContentVisible) {
+            return;
+        }
+
+        mIsContentVisible = visible;
+        if (mIsContentVisible) {
+            mContentVisibilityListener.onContentVisible(this);
+        } else {
+            mContentVisibilityListener.onContentHidden(this);
+        }
+    }
+
+    private void startObservingContentVisibility() {
+        if (!mIsObservingContentVisibility) {
+            mIsObservingContentVisibility = true;
+            getViewTreeObserver().addOnScrollChangedListener(mContentVisibilityScrollObserver);
+            getViewTreeObserver().addOnGlobalLayoutListener(mContentVisibilityLayoutObserver);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void stopObservingContentVisibility() {
+        if (mIsObservingContentVisibility) {
+            mIsObservingContentVisibility = false;
+            getViewTreeObserver().removeOnScrollChangedListener(mContentVisibilityScrollObserver);
+            getViewTreeObserver().removeGlobalOnLayoutListener(mContentVisibilityLayoutObserver);
+        }
+    }
+
+    private void releaseContentIfCollapsed() {
+        if (!mReleaseContentWhenCollapsed || !mIsCollapsed || mCollapsedContentHeight > 0
+                || mIsContentReleased || getContentView() == null) {
+            return;
+        }
+
+        mIsContentReleased = true;
+        if (mContentHost != null) {
+            mContentHost.onReleaseContent(this);
+        }
+
+        // the content may be wrapped by the overlay container
+        View content = getContentView();
+        while (content.getParent() != this && content.getParent() instanceof View) {
+            content = (View) content.getParent();
+        }
+        if (content.getParent() == this) {
+            mReleasedContent = content;
+            removeView(content);
+        }
+    }
+
+    private void ensureContentAttached() {
+        if (!mIsContentReleased) {
+            return;
+        }
+
+        mIsContentReleased = false;
+        if (mIsContentTrimmed) {
+            mIsContentTrimmed = false;
+            mReleasedContent = LayoutInflater.from(getContext()).inflate(mContentViewResId, this, false);
+            mReleasedContent.getLayoutParams().height = mCollapsedContentHeight;
+            mReleasedContent.setVisibility(View.GONE);
+            mReleasedContent.setOnClickListener(mDisableExpandCollapseOnClick ? null : this);
+            mContentView = mReleasedContent;
+        }
+        if (mReleasedContent != null) {
+            addView(mReleasedContent, getHeaderView() != null ? 1 : 0);
+            mReleasedContent = null;
+        }
+        if (mContentHost != null) {
+            mContentHost.onAttachContent(this);
+        }
+    }
+
+    private void trimContentIfCollapsed() {
+        // without a ContentHost to bind it again, content inflated again would be blank
+        if (mContentViewResId == -1 || mContentHost == null || mIsContentTrimmed || isAnimating()) {
+            return;
+        }
+
+        final boolean releaseContentWhenCollapsed = mReleaseContentWhenCollapsed;
+        mReleaseContentWhenCollapsed = true;
+        releaseContentIfCollapsed();
+        mReleaseContentWhenCollapsed = releaseContentWhenCollapsed;
+        if (!mIsContentReleased) {
+            return;
+        }
+
+        // only the last expanded height is kept, the content is inflated again on the next expand
+        mIsContentTrimmed = true;
+        mReleasedContent = null;
+        mContentView = null;
+        mGradientOverlay = null;
+        if (mCustomContentOverlayResId != -1) {
+            mCustomContentOverlay = null;
+        }
+    }
+
+    private void registerTrimMemoryCallback() {
+        if (!mIsTrimCallbackRegistered) {
+            mIsTrimCallbackRegistered = true;
+            getContext().getApplicationContext().registerComponentCallbacks(mTrimMemoryCallback);
+        }
+    }
+
+    private void unregisterTrimMemoryCallback() {
+        if (mIsTrimCallbackRegistered) {
+            mIsTrimCallbackRegistered = false;
+            getContext().getApplicationContext().unregisterComponentCallbacks(mTrimMemoryCallback);
+        }
+    }
+
+    /**
+     * Subclasses that already know the expanded height of their content may override this to skip the measure
+     *
+     * @return the height the content view will expand to at the current width
+     */
+    protected int measureExpandedContentHeight() {
+        final int width = getMeasuredWidth();
+        if (mUseCachedExpandedHeight) {
+            mUseCachedExpandedHeight = false;
+            // a resumed transition continues with the same content, so the cached height still holds
+            final int cachedHeight = mExpandedContentHeights.get(width);
+            if (cachedHeight > 0 && mContentHost == null) {
+                return recordExpandedContentHeight(cachedHeight);
+            }
+        }
+
+        ExpandableViewTrace.beginSection(ExpandableViewTrace.MEASURE_CONTENT);
+        try {
+            if (mLayoutPassStats != null) {
+                mLayoutPassStats.onMeasure();
+            }
+            getContentView().measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.AT_MOST),
+                    MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+        } finally {
+            ExpandableViewTrace.endSection();
+        }
+        return recordExpandedContentHeight(getContentView().getMeasuredHeight());
+    }
+
+    /**
+     * Records the height the content will expand to at the current width. Overrides of
+     * {@link #measureExpandedContentHeight()} that compute the height without measuring return through this
+     *
+     * @param expandedContentHeight the height (in px) the content view will expand to
+     * @return expandedContentHeight
+     */
+    protected final int recordExpandedContentHeight(int expandedContentHeight) {
+        final int width = getMeasuredWidth();
+        mExpandedContentWidth = width;
+        mExpandedContentHeight = expandedContentHeight;
+        if (mExpandedContentHeights.indexOfKey(width) < 0 && mExpandedContentHeights.size() >= MAX_CACHED_CONTENT_WIDTHS) {
+            evictLeastRecentlyUsedContentWidth();
+        }
+        mExpandedContentHeights.put(width, expandedContentHeight);
+        mExpandedContentWidthUses.put(width, ++mExpandedContentWidthUseCount);
+        return expandedContentHeight;
+    }
+
+    private void evictLeastRecentlyUsedContentWidth() {
+        int evictIndex = 0;
+        for (int i = 1; i < mExpandedContentHeights.size(); i++) {
+            if (mExpandedContentWidthUses.get(mExpandedContentHeights.keyAt(i))
+                    < mExpandedContentWidthUses.get(mExpandedContentHeights.keyAt(evictIndex))) {
+                evictIndex = i;
+            }
+        }
+        mExpandedContentWidthUses.delete(mExpandedContentHeights.keyAt(evictIndex));
+        mExpandedContentHeights.removeAt(evictIndex);
+    }
+
+    private void startLayoutPassCount() {
+        if (mLayoutPassStats == null) {
+            return;
+        }
+
+        mLayoutPassStats.reset();
+        if (!mIsCountingTransition) {
+            mIsCountingTransition = true;
+            getViewTreeObserver().addOnGlobalLayoutListener(mTraversalCounter);
+        }
+    }
+
+    private void finishLayoutPassCount() {
+        if (mLayoutPassStats == null || !mIsCountingTransition) {
+            return;
+        }
+
+        stopCountingTraversals();
+        if (mLayoutPassListener != null) {
+            mLayoutPassListener.onLayoutPassesCounted(this, this, mLayoutPassStats);
+        }
+        if (mDrawLayoutPassOverlay) {
+            invalidate();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void stopCountingTraversals() {
+        if (mIsCountingTransition) {
+            mIsCountingTransition = false;
+            getViewTreeObserver().removeGlobalOnLayoutListener(mTraversalCounter);
+        }
+    }
+
+    private void writeExpansionState(boolean expanded) {
+        if (mExpansionStateModel != null) {
+            mExpansionStateModel.setExpanded(mExpansionStateKey, expanded);
+        }
+    }
+
+    private void animateToNaturalContentHeight() {
+        View contentView = getContentView();
+        if (contentView == null || !isExpanded() || isAnimating() || getWindowToken() == null) {
+            return;
+        }
+
+        final int toHeight = measureExpandedContentHeight();
+        final int fromHeight;
+        if (mResizeAnimator != null) {
+            if (toHeight == mResizeTargetHeight) {
+                return;
+            }
+            // retarget the running resize from wherever it currently is
+            fromHeight = (int) mResizeAnimator.getAnimatedValue();
+        } else {
+            fromHeight = contentView.getHeight();
+            if (toHeight == fromHeight) {
+                return;
+            }
+        }
+
+        cancelResizeAnimation();
+        mResizeTargetHeight = toHeight;
+        mResizeAnimator = new ExpansionAnimator(getAnimationClock(), fromHeight, toHeight);
+        mResizeAnimator.setDuration(mAnimationDuration);
+        mResizeAnimator.setMotionPolicy(mMotionPolicy);
+        mResizeAnimator.setUpdateListener(new ExpansionAnimator.AnimatorUpdateListener() {
             @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
+            public void onAnimationUpdate(ExpansionAnimator animation) {
+                mIsApplyingContentHeight = true;
                 getContentView().getLayoutParams().height = (int) animation.getAnimatedValue();
                 getContentView().requestLayout();
-                if (mListener != null) {
-                    mListener.onHeightOffsetChanged(ExpandableView.this, animation.getAnimatedFraction());
+                mIsApplyingContentHeight = false;
+            }
+        });
+        mResizeAnimator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (mResizeAnimator == animation) {
+                    mResizeAnimator = null;
                 }
             }
         });
-        return animator;
+        mResizeAnimator.start();
+    }
+
+    /**
+     * @return the height the content last expanded to at the current width, otherwise the placeholder height
+     */
+    private int predictExpandedContentHeight() {
+        final int height = mExpandedContentHeights.get(getMeasuredWidth());
+        return height > 0 ? height : mPlaceholderHeight;
+    }
+
+    private void showPlaceholder() {
+        mIsPlaceholderShown = true;
+        mPlaceholderAlpha = 1f;
+        applyPlaceholderAlpha();
+    }
+
+    private void hidePlaceholder() {
+        mIsPlaceholderShown = false;
+        mPlaceholderAlpha = 0f;
+        applyPlaceholderAlpha();
+    }
+
+    private void applyPlaceholderAlpha() {
+        if (mContentView != null) {
+            mContentView.setAlpha(mIsPlaceholderShown ? 1f - mPlaceholderAlpha : 1f);
+        }
+        invalidate();
     }
 
-    private Animator getGradientOverlayAlphaAnimator(float fromAlpha, float toAlpha) {
-        ValueAnimator alphaAnimator = ValueAnimator.ofFloat(fromAlpha, toAlpha);
-        alphaAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+    /**
+     * Measures the loaded content once and, with the same frames, fades it in over the placeholder while animating
+     * from the predicted height to its real height
+     */
+    private void crossFadeToContent() {
+        final int fromHeight = getContentView().getHeight();
+        final int toHeight = measureExpandedContentHeight();
+
+        cancelResizeAnimation();
+        mResizeTargetHeight = toHeight;
+        mResizeAnimator = new ExpansionAnimator(getAnimationClock(), fromHeight, toHeight);
+        mResizeAnimator.setDuration(mAnimationDuration);
+        mResizeAnimator.setMotionPolicy(mMotionPolicy);
+        mResizeAnimator.setUpdateListener(new ExpansionAnimator.AnimatorUpdateListener() {
             @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                if (getCustomContentOverlay() == null) {
-                    mGradientOverlay.setAlpha((float) animation.getAnimatedValue());
+            public void onAnimationUpdate(ExpansionAnimator animation) {
+                if (fromHeight != toHeight) {
+                    mIsApplyingContentHeight = true;
+                    getContentView().getLayoutParams().height = (int) animation.getAnimatedValue();
+                    getContentView().requestLayout();
+                    mIsApplyingContentHeight = false;
                 }
+                mPlaceholderAlpha = 1f - animation.getInterpolatedFraction();
+                applyPlaceholderAlpha();
             }
         });
-        return alphaAnimator;
+        mResizeAnimator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (mResizeAnimator == animation) {
+                    mResizeAnimator = null;
+                }
+                hidePlaceholder();
+            }
+        });
+        mResizeAnimator.start();
+    }
+
+    private void cancelResizeAnimation() {
+        if (mResizeAnimator != null) {
+            ExpansionAnimator resizeAnimator = mResizeAnimator;
+            mResizeAnimator = null;
+            resizeAnimator.cancel();
+        }
+    }
+
+    private void startScrollingParent() {
+        if (!mScrollParentOnExpand || mScrollingParent != null) {
+            return;
+        }
+
+        ViewParent parent = getParent();
+        while (parent instanceof View && !(parent instanceof AbsListView)) {
+            if (parent instanceof ScrollView) {
+                mScrollingParent = (ScrollView) parent;
+                getViewTreeObserver().addOnPreDrawListener(mScrollParentOnPreDraw);
+                return;
+            }
+            parent = parent.getParent();
+        }
+    }
+
+    private void stopScrollingParent() {
+        if (mScrollingParent != null) {
+            getViewTreeObserver().removeOnPreDrawListener(mScrollParentOnPreDraw);
+            mScrollingParent = null;
+        }
+    }
+
+    /**
+     * Called after layout, so the parent's scroll range already includes the new content height
+     */
+    private void scrollParentToContent() {
+        ScrollView scrollView = mScrollingParent;
+        if (scrollView == null) {
+            return;
+        }
+        if (mAnimator == null) {
+            // the final frame of the expansion has been laid out
+            stopScrollingParent();
+            if (!isExpanded()) {
+                return;
+            }
+        }
+
+        Rect bounds = mScrollingParentRect;
+        getDrawingRect(bounds);
+        scrollView.offsetDescendantRectToMyCoords(this, bounds);
+        final int visibleHeight = scrollView.getHeight() - scrollView.getPaddingBottom();
+        final int scrollY = Math.min(bounds.bottom - visibleHeight, bounds.top - scrollView.getPaddingTop());
+        if (scrollY > scrollView.getScrollY()) {
+            scrollView.scrollTo(scrollView.getScrollX(), scrollY);
+        }
+    }
+
+    /**
+     * The gradient overlay fades with the same frames as the height, out while expanding and in while collapsing
+     */
+    private ExpansionAnimator getHeightAnimator(int fromHeight, int toHeight, final boolean expanding) {
+        final boolean fadeGradientOverlay = isAddOverlayWhenCollapsed() && mGradientOverlay != null && getCustomContentOverlay() == null;
+        ExpansionAnimator animator = new ExpansionAnimator(getAnimationClock(), fromHeight, toHeight);
+        animator.setDuration(mAnimationDuration);
+        animator.setMotionPolicy(mMotionPolicy);
+        animator.setUpdateListener(new ExpansionAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ExpansionAnimator animation) {
+                getContentView().getLayoutParams().height = (int) animation.getAnimatedValue();
+                getContentView().requestLayout();
+                if (fadeGradientOverlay) {
+                    float fraction = animation.getInterpolatedFraction();
+                    mGradientOverlay.setAlpha(expanding ? 1f - fraction : fraction);
+                }
+                if (mListener != null) {
+                    mListener.onHeightOffsetChanged(ExpandableView.this, animation.getInterpolatedFraction());
+                }
+            }
+        });
+        return animator;
     }
 
     public interface ExpandableViewListener {
@@ -752,6 +2062,51 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
         void onHeightOffsetChanged(ExpandableView expandableView, float offset);
     }
 
+    public interface ContentVisibilityListener {
+        /**
+         * Callback for when the expanded content view becomes at least partially visible on screen
+         *
+         * @param expandableView The ExpandableView whose content became visible
+         */
+        void onContentVisible(ExpandableView expandableView);
+
+        /**
+         * Callback for when the content view is no longer visible (collapsed, scrolled off, detached or window hidden)
+         *
+         * @param expandableView The ExpandableView whose content was hidden
+         */
+        void onContentHidden(ExpandableView expandableView);
+    }
+
+    public interface ContentHost {
+        /**
+         * Called before the content view is measured to expand. Anything released in
+         * {@link #onReleaseContent(ExpandableView)} should be restored synchronously here. If the content was
+         * trimmed under memory pressure it has just been inflated again, so any data should be bound here as well
+         *
+         * @param expandableView The ExpandableView about to expand
+         */
+        void onAttachContent(ExpandableView expandableView);
+
+        /**
+         * Called once the content view has fully collapsed, before it is detached from the window
+         *
+         * @param expandableView The ExpandableView that collapsed
+         */
+        void onReleaseContent(ExpandableView expandableView);
+    }
+
+    public interface OnLayoutPassListener {
+        /**
+         * Callback for when an expand/collapse transition ends while layout pass debugging is enabled
+         *
+         * @param countedView    The view the counts were recorded on (an ExpandableView or an ExpandableListView)
+         * @param expandableView The ExpandableView that was expanded or collapsed
+         * @param stats          The counts recorded during the transition
+         */
+        void onLayoutPassesCounted(View countedView, ExpandableView expandableView, LayoutPassStats stats);
+    }
+
     static class SavedState extends BaseSavedState {
         public static final Parcelable.Creator<SavedState> CREATOR =
                 new Parcelable.Creator<SavedState>() {
@@ -767,6 +2122,15 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
                 };
 
         boolean mIsCollapsed;
+        /**
+         * Expanded content heights keyed by the width they were measured at
+         */
+        SparseIntArray mExpandedContentHeights = new SparseIntArray();
+        /**
+         * Elapsed fraction of the transition running when the state was saved, -1 if there was none
+         */
+        float mTransitionFraction = -1;
+        boolean mIsTransitionExpanding;
 
         SavedState(Parcelable superState) {
             super(superState);
@@ -775,12 +2139,25 @@ public class ExpandableView extends LinearLayout implements View.OnClickListener
         private SavedState(Parcel in) {
             super(in);
             mIsCollapsed = in.readInt() == 1;
+            final int heightCount = in.readInt();
+            for (int i = 0; i < heightCount; i++) {
+                mExpandedContentHeights.put(in.readInt(), in.readInt());
+            }
+            mTransitionFraction = in.readFloat();
+            mIsTransitionExpanding = in.readInt() == 1;
         }
 
         @Override
         public void writeToParcel(@NonNull Parcel out, int flags) {
             super.writeToParcel(out, flags);
             out.writeInt(mIsCollapsed ? 1 : 0);
+            out.writeInt(mExpandedContentHeights.size());
+            for (int i = 0; i < mExpandedContentHeights.size(); i++) {
+                out.writeInt(mExpandedContentHeights.keyAt(i));
+                out.writeInt(mExpandedContentHeights.valueAt(i));
+            }
+            out.writeFloat(mTransitionFraction);
+            out.writeInt(mIsTransitionExpanding ? 1 : 0);
         }
     }
 }
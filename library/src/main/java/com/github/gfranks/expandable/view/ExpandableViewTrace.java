@@ -0,0 +1,64 @@
+package com.github.gfranks.expandable.view;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Emits named systrace/Perfetto sections around the ExpandableView and ExpandableListView hot paths
+ * (expand/collapse, content measure, overlay setup, view inflation and list row state reconciliation).
+ * <p/>
+ * Tracing is off by default and may be toggled at runtime with {@link #setEnabled(boolean)}. While off,
+ * every call is a single static field check. To strip the calls from a release build entirely, add:
+ * <pre>
+ * -assumenosideeffects class com.github.gfranks.expandable.view.ExpandableViewTrace {
+ *     static void beginSection(java.lang.String);
+ *     static void endSection();
+ * }
+ * </pre>
+ */
+public final class ExpandableViewTrace {
+
+    static final String EXPAND_CONTENT = "ExpandableView#expandContent";
+    static final String COLLAPSE_CONTENT = "ExpandableView#collapseContent";
+    static final String MEASURE_CONTENT = "ExpandableView#measureContent";
+    static final String ENSURE_CONTENT_OVERLAY_ADDED = "ExpandableView#ensureContentOverlayAdded";
+    static final String SET_HEADER_VIEW = "ExpandableView#setHeaderView";
+    static final String SET_CONTENT_VIEW = "ExpandableView#setContentView";
+    static final String BIND_ROW = "ExpandableListView#bindRow";
+
+    private static final boolean TRACE_SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    private static volatile boolean sEnabled;
+
+    private ExpandableViewTrace() {
+    }
+
+    /**
+     * @return boolean determining if trace sections are currently emitted
+     * @see #setEnabled(boolean)
+     */
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Trace sections are only emitted on API 18+, this is a no-op on older devices
+     *
+     * @param enabled boolean determining if trace sections should be emitted
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled && TRACE_SUPPORTED;
+    }
+
+    static void beginSection(String sectionName) {
+        if (sEnabled) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    static void endSection() {
+        if (sEnabled) {
+            Trace.endSection();
+        }
+    }
+}
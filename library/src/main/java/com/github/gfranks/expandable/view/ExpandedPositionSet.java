@@ -0,0 +1,143 @@
+package com.github.gfranks.expandable.view;
+
+import java.util.Arrays;
+
+/**
+ * Compact set of expanded adapter positions backed by a bit set. Lookups and toggles are O(1) regardless of how
+ * many rows are expanded, unlike a List of Integers which must be scanned (and boxes every position).
+ * <p/>
+ * The benchmark module compiles this class without Android and measures it against that List in ExpansionStateBenchmark.
+ */
+public class ExpandedPositionSet {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private long[] mWords;
+    private int mSize;
+
+    public ExpandedPositionSet() {
+        mWords = new long[1];
+    }
+
+    /**
+     * @param words bit words previously returned from {@link #toWords()}
+     */
+    public ExpandedPositionSet(long[] words) {
+        mWords = words != null && words.length > 0 ? words.clone() : new long[1];
+        for (long word : mWords) {
+            mSize += Long.bitCount(word);
+        }
+    }
+
+    /**
+     * @param position adapter position
+     * @return boolean determining if the position is expanded
+     */
+    public boolean contains(int position) {
+        if (position < 0) {
+            return false;
+        }
+
+        int wordIndex = position >> ADDRESS_BITS_PER_WORD;
+        return wordIndex < mWords.length && (mWords[wordIndex] & (1L << position)) != 0;
+    }
+
+    /**
+     * @param position adapter position to mark as expanded, negative positions are ignored
+     * @return boolean determining if the set changed
+     */
+    public boolean add(int position) {
+        if (position < 0) {
+            return false;
+        }
+
+        int wordIndex = position >> ADDRESS_BITS_PER_WORD;
+        if (wordIndex >= mWords.length) {
+            mWords = Arrays.copyOf(mWords, Math.max(mWords.length * 2, wordIndex + 1));
+        }
+
+        long word = mWords[wordIndex];
+        mWords[wordIndex] = word | (1L << position);
+        if (word != mWords[wordIndex]) {
+            mSize++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param position adapter position to mark as collapsed
+     * @return boolean determining if the set changed
+     */
+    public boolean remove(int position) {
+        if (!contains(position)) {
+            return false;
+        }
+
+        mWords[position >> ADDRESS_BITS_PER_WORD] &= ~(1L << position);
+        mSize--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(mWords, 0L);
+        mSize = 0;
+    }
+
+    /**
+     * @return number of expanded positions
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * @param fromPosition position to start searching from (inclusive)
+     * @return the first expanded position at or after fromPosition, -1 if there is none
+     */
+    public int nextExpandedPosition(int fromPosition) {
+        fromPosition = Math.max(fromPosition, 0);
+        int wordIndex = fromPosition >> ADDRESS_BITS_PER_WORD;
+        if (wordIndex >= mWords.length) {
+            return -1;
+        }
+
+        long word = mWords[wordIndex] & (-1L << fromPosition);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == mWords.length) {
+                return -1;
+            }
+            word = mWords[wordIndex];
+        }
+    }
+
+    /**
+     * @return the expanded positions in ascending order
+     */
+    public int[] toArray() {
+        int[] positions = new int[mSize];
+        int i = 0;
+        for (int position = nextExpandedPosition(0); position >= 0; position = nextExpandedPosition(position + 1)) {
+            positions[i++] = position;
+        }
+        return positions;
+    }
+
+    /**
+     * @return the backing bit words, trimmed of trailing empty words. Suitable for writing to a Parcel
+     */
+    public long[] toWords() {
+        int length = mWords.length;
+        while (length > 0 && mWords[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(mWords, length);
+    }
+}
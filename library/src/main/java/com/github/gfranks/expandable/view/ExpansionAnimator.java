@@ -0,0 +1,262 @@
+package com.github.gfranks.expandable.view;
+
+import android.animation.Animator;
+import android.animation.TimeInterpolator;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+import java.util.ArrayList;
+
+/**
+ * Animator of a single value driven by an {@link AnimationClock} rather than the global ValueAnimator timing, used
+ * for every expand/collapse transition. Start is reported synchronously from {@link #start()} before the first value
+ * is applied (ValueAnimator applies it first), so start listeners run before any update and may still change the end
+ * value. {@link #cancel()} reports cancel followed by end.
+ */
+public class ExpansionAnimator extends Animator implements AnimationClock.FrameCallback {
+
+    private static final long DEFAULT_DURATION = 300;
+    private static final TimeInterpolator DEFAULT_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    private final AnimationClock mClock;
+    private final float mFromValue;
+    private float mToValue;
+    private long mDuration = DEFAULT_DURATION;
+    private TimeInterpolator mInterpolator = DEFAULT_INTERPOLATOR;
+    private AnimatorUpdateListener mUpdateListener;
+    private MotionPolicy mMotionPolicy;
+    private boolean mIsRunning;
+    /**
+     * Scaled duration captured when the animation starts, and the time of its first frame (at which the fraction is 0)
+     */
+    private long mScaledDuration;
+    private long mStartTime;
+    private float mStartFraction;
+    private float mAnimatedFraction;
+    private float mInterpolatedFraction;
+
+    /**
+     * @param clock     AnimationClock supplying frames
+     * @param fromValue value at the start of the animation
+     * @param toValue   value at the end of the animation
+     */
+    public ExpansionAnimator(AnimationClock clock, float fromValue, float toValue) {
+        mClock = clock;
+        mFromValue = fromValue;
+        mToValue = toValue;
+    }
+
+    /**
+     * @param listener AnimatorUpdateListener that will receive a callback for every frame, including the first and last
+     */
+    public void setUpdateListener(AnimatorUpdateListener listener) {
+        mUpdateListener = listener;
+    }
+
+    /**
+     * @param motionPolicy MotionPolicy that may shorten or snap the transition when it starts and observes its frames,
+     *                     null to always run for the set duration
+     */
+    public void setMotionPolicy(MotionPolicy motionPolicy) {
+        mMotionPolicy = motionPolicy;
+    }
+
+    /**
+     * Must be called before {@link #start()}
+     *
+     * @param startFraction elapsed fraction of the duration to start from, so an interrupted transition can continue
+     *                      where it left off and run for the remainder of the duration
+     */
+    public void setStartFraction(float startFraction) {
+        mStartFraction = Math.max(0f, Math.min(1f, startFraction));
+    }
+
+    /**
+     * @return the elapsed fraction of the duration, between 0 and 1
+     */
+    public float getAnimatedFraction() {
+        return mAnimatedFraction;
+    }
+
+    /**
+     * @return the elapsed fraction after applying the interpolator
+     */
+    public float getInterpolatedFraction() {
+        return mInterpolatedFraction;
+    }
+
+    /**
+     * @return the current value, between the from and to values
+     */
+    public float getAnimatedValue() {
+        return mFromValue + (mToValue - mFromValue) * mInterpolatedFraction;
+    }
+
+    public float getToValue() {
+        return mToValue;
+    }
+
+    /**
+     * Only continuous if called before the first frame, e.g. from the start callback
+     *
+     * @param toValue value at the end of the animation
+     */
+    public void setToValue(float toValue) {
+        mToValue = toValue;
+    }
+
+    @Override
+    public void start() {
+        if (mIsRunning) {
+            return;
+        }
+
+        mIsRunning = true;
+        mStartTime = -1;
+        final long duration = mMotionPolicy != null ? mMotionPolicy.onTransitionStart(mDuration) : mDuration;
+        mScaledDuration = (long) (duration * mClock.getDurationScale());
+        notifyListeners(ListenerEvent.START);
+        if (mScaledDuration <= 0 || mStartFraction >= 1f) {
+            // snap, still reporting start, the final value and end in the same order as an animated transition
+            setFraction(1f);
+            finish();
+        } else {
+            setFraction(mStartFraction);
+            mClock.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeMillis) {
+        if (!mIsRunning) {
+            return;
+        }
+
+        if (mStartTime < 0) {
+            mStartTime = frameTimeMillis - (long) (mStartFraction * mScaledDuration);
+        }
+        if (mMotionPolicy != null) {
+            mMotionPolicy.onTransitionFrame(frameTimeMillis);
+        }
+        final float fraction = Math.min(1f, (float) (frameTimeMillis - mStartTime) / mScaledDuration);
+        setFraction(fraction);
+        if (fraction >= 1f) {
+            finish();
+        } else {
+            mClock.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Jumps to the end of the running animation, reporting the final value and end
+     */
+    @Override
+    public void end() {
+        if (!mIsRunning) {
+            return;
+        }
+
+        mClock.removeFrameCallback(this);
+        setFraction(1f);
+        finish();
+    }
+
+    /**
+     * Stops the running animation at its current value, reporting cancel then end
+     */
+    @Override
+    public void cancel() {
+        if (!mIsRunning) {
+            return;
+        }
+
+        mIsRunning = false;
+        mClock.removeFrameCallback(this);
+        if (mMotionPolicy != null) {
+            mMotionPolicy.onTransitionEnd();
+        }
+        notifyListeners(ListenerEvent.CANCEL);
+        notifyListeners(ListenerEvent.END);
+    }
+
+    private void finish() {
+        mIsRunning = false;
+        if (mMotionPolicy != null) {
+            mMotionPolicy.onTransitionEnd();
+        }
+        notifyListeners(ListenerEvent.END);
+    }
+
+    private void setFraction(float fraction) {
+        mAnimatedFraction = fraction;
+        mInterpolatedFraction = mInterpolator.getInterpolation(fraction);
+        if (mUpdateListener != null) {
+            mUpdateListener.onAnimationUpdate(this);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void notifyListeners(ListenerEvent event) {
+        if (getListeners() == null) {
+            return;
+        }
+
+        ArrayList<AnimatorListener> listeners = (ArrayList<AnimatorListener>) getListeners().clone();
+        for (AnimatorListener listener : listeners) {
+            switch (event) {
+                case START:
+                    listener.onAnimationStart(this);
+                    break;
+                case CANCEL:
+                    listener.onAnimationCancel(this);
+                    break;
+                case END:
+                    listener.onAnimationEnd(this);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public long getStartDelay() {
+        return 0;
+    }
+
+    /**
+     * Start delays are not supported, transitions start on the next frame
+     */
+    @Override
+    public void setStartDelay(long startDelay) {
+    }
+
+    @Override
+    public ExpansionAnimator setDuration(long duration) {
+        mDuration = duration;
+        return this;
+    }
+
+    @Override
+    public long getDuration() {
+        return mDuration;
+    }
+
+    @Override
+    public void setInterpolator(TimeInterpolator interpolator) {
+        mInterpolator = interpolator != null ? interpolator : DEFAULT_INTERPOLATOR;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return mIsRunning;
+    }
+
+    private enum ListenerEvent {
+        START, CANCEL, END
+    }
+
+    public interface AnimatorUpdateListener {
+        /**
+         * @param animation the ExpansionAnimator whose value changed
+         */
+        void onAnimationUpdate(ExpansionAnimator animation);
+    }
+}
@@ -0,0 +1,215 @@
+package com.github.gfranks.expandable.view;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Set of expanded adapter positions persisted in a compact bit set file that is memory-mapped rather than read, so
+ * opening it costs no parsing and no heap proportional to the number of positions, and each lookup or toggle is an
+ * O(1) read or write of a single word in the mapping. Changes reach the file through the OS page cache as they are
+ * made, so they survive the process being killed; {@link #flush()} forces them to storage.
+ * <p/>
+ * The file holds a 16 byte header (magic, version and the number of expanded positions) followed by the bit words,
+ * and grows as higher positions are expanded. Like ExpandedPositionSet it is not thread safe.
+ * <p/>
+ * The file and its mapping stay open until {@link #close()} is called, so close it once no list uses it.
+ *
+ * @see ExpandableListView#setExpansionStateFile(ExpansionStateFile)
+ */
+public class ExpansionStateFile extends ExpandedPositionSet implements Closeable {
+
+    private static final int MAGIC = 0x45565346; // "EVSF"
+    private static final int VERSION = 1;
+    private static final int SIZE_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    /**
+     * Minimum number of words the file grows by, 512 bytes covering 4096 positions
+     */
+    private static final int MIN_GROWTH_WORDS = 64;
+
+    private final RandomAccessFile mFile;
+    private final FileChannel mChannel;
+    private MappedByteBuffer mBuffer;
+    private int mWordCount;
+
+    /**
+     * @param file file to open, created if it does not exist
+     * @throws IOException if the file can't be opened or mapped, or is not an expansion state file
+     */
+    public ExpansionStateFile(File file) throws IOException {
+        mFile = new RandomAccessFile(file, "rw");
+        mChannel = mFile.getChannel();
+        try {
+            final long length = mChannel.size();
+            if (length == 0) {
+                map(MIN_GROWTH_WORDS);
+                mBuffer.putInt(0, MAGIC);
+                mBuffer.putInt(4, VERSION);
+                mBuffer.putLong(SIZE_OFFSET, 0);
+            } else if (length < HEADER_SIZE || (length - HEADER_SIZE) % 8 != 0) {
+                throw new IOException("Not an expansion state file: " + file);
+            } else {
+                map((int) ((length - HEADER_SIZE) / 8));
+                if (mBuffer.getInt(0) != MAGIC || mBuffer.getInt(4) != VERSION) {
+                    throw new IOException("Not an expansion state file: " + file);
+                }
+            }
+        } catch (IOException e) {
+            mFile.close();
+            throw e;
+        }
+    }
+
+    private void map(int wordCount) throws IOException {
+        mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) wordCount * 8);
+        mWordCount = wordCount;
+    }
+
+    private void ensureCapacity(int wordCount) {
+        if (wordCount <= mWordCount) {
+            return;
+        }
+
+        try {
+            map(Math.max(wordCount, mWordCount + Math.max(mWordCount, MIN_GROWTH_WORDS)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to grow expansion state file", e);
+        }
+    }
+
+    private long getWord(int wordIndex) {
+        return mBuffer.getLong(HEADER_SIZE + wordIndex * 8);
+    }
+
+    private void setWord(int wordIndex, long word) {
+        mBuffer.putLong(HEADER_SIZE + wordIndex * 8, word);
+    }
+
+    private void addToSize(long delta) {
+        mBuffer.putLong(SIZE_OFFSET, mBuffer.getLong(SIZE_OFFSET) + delta);
+    }
+
+    @Override
+    public boolean contains(int position) {
+        if (position < 0) {
+            return false;
+        }
+
+        int wordIndex = position >> ADDRESS_BITS_PER_WORD;
+        return wordIndex < mWordCount && (getWord(wordIndex) & (1L << position)) != 0;
+    }
+
+    @Override
+    public boolean add(int position) {
+        if (position < 0) {
+            return false;
+        }
+
+        int wordIndex = position >> ADDRESS_BITS_PER_WORD;
+        ensureCapacity(wordIndex + 1);
+        long word = getWord(wordIndex);
+        if ((word & (1L << position)) != 0) {
+            return false;
+        }
+        setWord(wordIndex, word | (1L << position));
+        addToSize(1);
+        return true;
+    }
+
+    @Override
+    public boolean remove(int position) {
+        if (!contains(position)) {
+            return false;
+        }
+
+        int wordIndex = position >> ADDRESS_BITS_PER_WORD;
+        setWord(wordIndex, getWord(wordIndex) & ~(1L << position));
+        addToSize(-1);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int wordIndex = 0; wordIndex < mWordCount; wordIndex++) {
+            setWord(wordIndex, 0L);
+        }
+        mBuffer.putLong(SIZE_OFFSET, 0);
+    }
+
+    @Override
+    public int size() {
+        return (int) mBuffer.getLong(SIZE_OFFSET);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int nextExpandedPosition(int fromPosition) {
+        fromPosition = Math.max(fromPosition, 0);
+        int wordIndex = fromPosition >> ADDRESS_BITS_PER_WORD;
+        if (wordIndex >= mWordCount) {
+            return -1;
+        }
+
+        long word = getWord(wordIndex) & (-1L << fromPosition);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == mWordCount) {
+                return -1;
+            }
+            word = getWord(wordIndex);
+        }
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] positions = new int[size()];
+        int i = 0;
+        for (int position = nextExpandedPosition(0); position >= 0; position = nextExpandedPosition(position + 1)) {
+            positions[i++] = position;
+        }
+        return positions;
+    }
+
+    @Override
+    public long[] toWords() {
+        int length = mWordCount;
+        while (length > 0 && getWord(length - 1) == 0) {
+            length--;
+        }
+        long[] words = new long[length];
+        for (int wordIndex = 0; wordIndex < length; wordIndex++) {
+            words[wordIndex] = getWord(wordIndex);
+        }
+        return words;
+    }
+
+    /**
+     * Forces changes made so far to storage. Changes are already visible to the file (and survive the process being
+     * killed) without flushing, this only guards against the device losing power
+     */
+    public void flush() {
+        mBuffer.force();
+    }
+
+    /**
+     * Flushes and closes the file, the set must not be used afterwards
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        mBuffer.force();
+        mFile.close();
+    }
+}
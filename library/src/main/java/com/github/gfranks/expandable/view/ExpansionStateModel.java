@@ -0,0 +1,200 @@
+package com.github.gfranks.expandable.view;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Expanded state of items keyed by a stable id, held outside of any view so it survives view recycling and may be
+ * shared between screens. ExpandableView and ExpandableListView bind to a model and follow its changes.
+ * <p/>
+ * Mutations are thread safe and may be made from any thread (e.g. from a data loader). Observers are notified on the
+ * main thread, at most once per frame, with every key changed since the last notification, so 500 changes made
+ * together cause a single UI update.
+ *
+ * @see ExpandableView#setExpansionStateModel(ExpansionStateModel, long)
+ * @see ExpandableListView#setExpansionStateModel(ExpansionStateModel)
+ */
+public class ExpansionStateModel {
+
+    private final Object mLock = new Object();
+    private final AnimationClock mClock;
+    private final Handler mMainHandler;
+    private final HashSet<Long> mExpandedKeys = new HashSet<Long>();
+    /**
+     * Keys changed since the last notification, guarded by mLock
+     */
+    private HashSet<Long> mChangedKeys = new HashSet<Long>();
+    private boolean mIsDispatchScheduled;
+    /**
+     * Only accessed on the main thread
+     */
+    private final ArrayList<Observer> mObservers = new ArrayList<Observer>();
+    private final Runnable mScheduleDispatch = new Runnable() {
+        @Override
+        public void run() {
+            mClock.postFrameCallback(mDispatch);
+        }
+    };
+    private final AnimationClock.FrameCallback mDispatch = new AnimationClock.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeMillis) {
+            dispatchChanges();
+        }
+    };
+
+    /**
+     * @param context Context used to create the default AnimationClock that notifications are aligned to
+     */
+    public ExpansionStateModel(Context context) {
+        this(ChoreographerAnimationClock.getInstance(context));
+    }
+
+    /**
+     * @param clock AnimationClock whose frames notifications are delivered on, must run its callbacks on the main thread
+     */
+    public ExpansionStateModel(AnimationClock clock) {
+        mClock = clock;
+        mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * @param key stable id of the item
+     * @return boolean determining if the item is expanded
+     */
+    public boolean isExpanded(long key) {
+        synchronized (mLock) {
+            return mExpandedKeys.contains(key);
+        }
+    }
+
+    /**
+     * May be called from any thread
+     *
+     * @param key      stable id of the item
+     * @param expanded boolean determining if the item should be expanded
+     */
+    public void setExpanded(long key, boolean expanded) {
+        synchronized (mLock) {
+            boolean changed = expanded ? mExpandedKeys.add(key) : mExpandedKeys.remove(key);
+            if (changed) {
+                onChangedLocked(key);
+            }
+        }
+    }
+
+    /**
+     * Replaces every expanded key, only the keys whose state differs are reported as changed. May be called from
+     * any thread
+     *
+     * @param keys stable ids of the items that should be expanded, every other item is collapsed
+     */
+    public void setExpandedKeys(long[] keys) {
+        synchronized (mLock) {
+            HashSet<Long> expandedKeys = new HashSet<Long>(keys.length);
+            for (long key : keys) {
+                expandedKeys.add(key);
+                if (mExpandedKeys.add(key)) {
+                    onChangedLocked(key);
+                }
+            }
+            for (Long key : new ArrayList<Long>(mExpandedKeys)) {
+                if (!expandedKeys.contains(key)) {
+                    mExpandedKeys.remove(key);
+                    onChangedLocked(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collapses every item. May be called from any thread
+     */
+    public void clear() {
+        setExpandedKeys(new long[0]);
+    }
+
+    /**
+     * @return the stable ids of every expanded item, in no particular order
+     */
+    public long[] getExpandedKeys() {
+        synchronized (mLock) {
+            long[] keys = new long[mExpandedKeys.size()];
+            int i = 0;
+            for (Long key : mExpandedKeys) {
+                keys[i++] = key;
+            }
+            return keys;
+        }
+    }
+
+    /**
+     * Must be called on the main thread
+     *
+     * @param observer Observer that will be notified of changes
+     */
+    public void registerObserver(Observer observer) {
+        if (!mObservers.contains(observer)) {
+            mObservers.add(observer);
+        }
+    }
+
+    /**
+     * Must be called on the main thread
+     *
+     * @param observer Observer to stop notifying
+     */
+    public void unregisterObserver(Observer observer) {
+        mObservers.remove(observer);
+    }
+
+    private void onChangedLocked(long key) {
+        mChangedKeys.add(key);
+        if (mIsDispatchScheduled) {
+            return;
+        }
+
+        mIsDispatchScheduled = true;
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            mScheduleDispatch.run();
+        } else {
+            mMainHandler.post(mScheduleDispatch);
+        }
+    }
+
+    private void dispatchChanges() {
+        long[] changedKeys;
+        synchronized (mLock) {
+            mIsDispatchScheduled = false;
+            changedKeys = new long[mChangedKeys.size()];
+            int i = 0;
+            for (Long key : mChangedKeys) {
+                changedKeys[i++] = key;
+            }
+            mChangedKeys.clear();
+        }
+
+        if (changedKeys.length == 0) {
+            return;
+        }
+        // observers may unregister while being notified
+        Observer[] observers = mObservers.toArray(new Observer[mObservers.size()]);
+        for (Observer observer : observers) {
+            observer.onExpansionStateChanged(this, changedKeys);
+        }
+    }
+
+    public interface Observer {
+        /**
+         * Called on the main thread, at most once per frame
+         *
+         * @param model       the ExpansionStateModel that changed
+         * @param changedKeys stable ids of every item whose state changed since the last notification. The current
+         *                    state should be read from the model, an item may have changed more than once
+         */
+        void onExpansionStateChanged(ExpansionStateModel model, long[] changedKeys);
+    }
+}
@@ -0,0 +1,230 @@
+package com.github.gfranks.expandable.view;
+
+/**
+ * Maps between the nodes of a tree (indexed in pre-order) and their position among the currently visible rows,
+ * where a row is visible if none of its ancestors are collapsed.
+ * <p/>
+ * Every node has a weight of 1 in a Fenwick (binary indexed) tree over the pre-order indices. Collapsing a node adds
+ * the negated number of its visible descendants at the first descendant's index, so the weights inside any collapsed
+ * subtree sum to 0 and prefix sums at visible nodes are their row counts. Nested collapsed nodes keep their own
+ * adjustments, so expanding or collapsing a node with thousands of descendants is O(log n) (plus walking up its
+ * ancestors to find the nearest collapsed one) instead of touching every descendant.
+ * <p/>
+ * FlattenedTreeBenchmark measures it against rebuilding the list of visible nodes on every toggle, on a plain JVM.
+ */
+public class FlattenedTree {
+
+    private final int mNodeCount;
+    private final int[] mParents;
+    private final int[] mSubtreeSizes;
+    private final long[] mTree;
+    /**
+     * Adjustment applied at the first descendant of each collapsed node, 0 for expanded nodes
+     */
+    private final int[] mAdjustments;
+    private final boolean[] mCollapsed;
+    private int mVisibleCount;
+
+    /**
+     * @param subtreeSizes number of descendants of each node, in pre-order. All nodes start expanded
+     */
+    public FlattenedTree(int[] subtreeSizes) {
+        mNodeCount = subtreeSizes.length;
+        mSubtreeSizes = subtreeSizes.clone();
+        mParents = new int[mNodeCount];
+        mTree = new long[mNodeCount + 1];
+        mAdjustments = new int[mNodeCount];
+        mCollapsed = new boolean[mNodeCount];
+        mVisibleCount = mNodeCount;
+
+        int[] ancestors = new int[mNodeCount];
+        int depth = 0;
+        for (int node = 0; node < mNodeCount; node++) {
+            while (depth > 0 && node > ancestors[depth - 1] + mSubtreeSizes[ancestors[depth - 1]]) {
+                depth--;
+            }
+            mParents[node] = depth > 0 ? ancestors[depth - 1] : -1;
+            ancestors[depth++] = node;
+        }
+
+        // O(n) Fenwick construction from all-ones weights
+        for (int i = 1; i <= mNodeCount; i++) {
+            mTree[i] += 1;
+            int parent = i + (i & -i);
+            if (parent <= mNodeCount) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+
+    /**
+     * @return number of nodes in the tree
+     */
+    public int getNodeCount() {
+        return mNodeCount;
+    }
+
+    /**
+     * @return number of visible rows
+     */
+    public int getVisibleCount() {
+        return mVisibleCount;
+    }
+
+    /**
+     * @param node pre-order node index
+     * @return the parent node, -1 for a root
+     */
+    public int getParent(int node) {
+        return mParents[node];
+    }
+
+    /**
+     * @param node pre-order node index
+     * @return number of ancestors of the node
+     */
+    public int getDepth(int node) {
+        int depth = 0;
+        for (int parent = mParents[node]; parent >= 0; parent = mParents[parent]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * @param node pre-order node index
+     * @return number of descendants of the node
+     */
+    public int getSubtreeSize(int node) {
+        return mSubtreeSizes[node];
+    }
+
+    public boolean isCollapsed(int node) {
+        return mCollapsed[node];
+    }
+
+    /**
+     * @param node pre-order node index
+     * @return boolean determining if none of the node's ancestors are collapsed
+     */
+    public boolean isVisible(int node) {
+        return getOutermostCollapsedAncestor(node) < 0;
+    }
+
+    /**
+     * @param node pre-order node index
+     * @return the node's row position, -1 if it is hidden by a collapsed ancestor
+     */
+    public int getPosition(int node) {
+        if (!isVisible(node)) {
+            return -1;
+        }
+        return (int) prefixSum(node) - 1;
+    }
+
+    /**
+     * @param position row position
+     * @return the pre-order index of the node shown at that position
+     * @throws java.lang.IndexOutOfBoundsException if the position is not a visible row
+     */
+    public int getNode(int position) {
+        if (position < 0 || position >= mVisibleCount) {
+            throw new IndexOutOfBoundsException("position " + position + " of " + mVisibleCount + " visible rows");
+        }
+
+        // binary search the first node whose count of visible rows up to and including itself exceeds position
+        int low = 0;
+        int high = mNodeCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (visibleRowsThrough(mid) > position) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Collapses a node, hiding its descendants
+     *
+     * @param node pre-order node index
+     * @return number of rows hidden, 0 if nothing changed (the node was collapsed or has no descendants)
+     */
+    public int collapse(int node) {
+        if (mCollapsed[node] || mSubtreeSizes[node] == 0) {
+            return 0;
+        }
+
+        final int hidden = (int) (prefixSum(node + mSubtreeSizes[node]) - prefixSum(node));
+        mCollapsed[node] = true;
+        mAdjustments[node] = -hidden;
+        add(node + 1, -hidden);
+        onVisibleRowsChanged(node, -hidden);
+        return hidden;
+    }
+
+    /**
+     * Expands a node, showing descendants that are not hidden by another collapsed node
+     *
+     * @param node pre-order node index
+     * @return number of rows shown, 0 if nothing changed
+     */
+    public int expand(int node) {
+        if (!mCollapsed[node]) {
+            return 0;
+        }
+
+        final int shown = -mAdjustments[node];
+        mCollapsed[node] = false;
+        mAdjustments[node] = 0;
+        add(node + 1, shown);
+        onVisibleRowsChanged(node, shown);
+        return shown;
+    }
+
+    private void onVisibleRowsChanged(int node, int delta) {
+        // a hidden node's change is absorbed by its nearest collapsed ancestor, keeping that subtree's sum at 0
+        for (int parent = mParents[node]; parent >= 0; parent = mParents[parent]) {
+            if (mCollapsed[parent]) {
+                mAdjustments[parent] -= delta;
+                add(parent + 1, -delta);
+                return;
+            }
+        }
+        mVisibleCount += delta;
+    }
+
+    /**
+     * @return number of visible rows at or before the node, which is monotonic in the node index
+     */
+    private long visibleRowsThrough(int node) {
+        int collapsedAncestor = getOutermostCollapsedAncestor(node);
+        return prefixSum(collapsedAncestor >= 0 ? collapsedAncestor : node);
+    }
+
+    private int getOutermostCollapsedAncestor(int node) {
+        int outermost = -1;
+        for (int parent = mParents[node]; parent >= 0; parent = mParents[parent]) {
+            if (mCollapsed[parent]) {
+                outermost = parent;
+            }
+        }
+        return outermost;
+    }
+
+    private long prefixSum(int node) {
+        long sum = 0;
+        for (int i = node + 1; i > 0; i -= i & -i) {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    private void add(int node, long delta) {
+        for (int i = node + 1; i <= mNodeCount; i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.gfranks.expandable.view;
+
+import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentManager;
+
+/**
+ * ContentHost that detaches a fragment hosted in the content view once the ExpandableView has fully collapsed,
+ * destroying its view hierarchy, and reattaches it before the content is measured to expand.
+ * <p/>
+ * NOTE: Please #setReleaseContentWhenCollapsed(true) on the ExpandableView as well
+ */
+public class FragmentContentHost implements ExpandableView.ContentHost {
+
+    private FragmentManager mFragmentManager;
+    private String mFragmentTag;
+
+    /**
+     * @param fragmentManager FragmentManager the fragment was added with
+     * @param fragmentTag     tag the fragment was added with
+     */
+    public FragmentContentHost(FragmentManager fragmentManager, String fragmentTag) {
+        mFragmentManager = fragmentManager;
+        mFragmentTag = fragmentTag;
+    }
+
+    @Override
+    public void onAttachContent(ExpandableView expandableView) {
+        // a detach committed on release may not have run yet, and would run after this attach
+        mFragmentManager.executePendingTransactions();
+        Fragment fragment = mFragmentManager.findFragmentByTag(mFragmentTag);
+        if (fragment != null && fragment.isDetached()) {
+            mFragmentManager.beginTransaction()
+                    .attach(fragment)
+                    .commitAllowingStateLoss();
+            // the fragment's views must exist before the content is measured
+            mFragmentManager.executePendingTransactions();
+        }
+    }
+
+    @Override
+    public void onReleaseContent(ExpandableView expandableView) {
+        Fragment fragment = mFragmentManager.findFragmentByTag(mFragmentTag);
+        if (fragment != null && !fragment.isDetached()) {
+            // detaching only releases views, so losing it to a state save just keeps the views around
+            mFragmentManager.beginTransaction()
+                    .detach(fragment)
+                    .commitAllowingStateLoss();
+        }
+    }
+}
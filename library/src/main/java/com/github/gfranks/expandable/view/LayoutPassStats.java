@@ -0,0 +1,87 @@
+package com.github.gfranks.expandable.view;
+
+/**
+ * Counts of measure/layout work recorded while layout pass debugging is enabled on an ExpandableView or
+ * ExpandableListView. Counters are reset at the start of every expand/collapse transition.
+ *
+ * @see ExpandableView#setLayoutPassDebugEnabled(boolean)
+ * @see ExpandableListView#setLayoutPassDebugEnabled(boolean)
+ */
+public class LayoutPassStats {
+
+    private int mMeasureCount;
+    private int mLayoutCount;
+    private int mRequestLayoutCount;
+    private int mRequestLayoutDuringDrawCount;
+    private int mTraversalCount;
+
+    /**
+     * @return number of onMeasure calls (including the explicit content measure made when expanding)
+     */
+    public int getMeasureCount() {
+        return mMeasureCount;
+    }
+
+    /**
+     * @return number of onLayout calls
+     */
+    public int getLayoutCount() {
+        return mLayoutCount;
+    }
+
+    /**
+     * @return number of requestLayout calls, including those propagated up from descendants
+     */
+    public int getRequestLayoutCount() {
+        return mRequestLayoutCount;
+    }
+
+    /**
+     * @return number of requestLayout calls made while the counted view was drawing its children
+     */
+    public int getRequestLayoutDuringDrawCount() {
+        return mRequestLayoutDuringDrawCount;
+    }
+
+    /**
+     * @return number of layout traversals of the window, each of which lays out every ancestor of the counted view
+     */
+    public int getTraversalCount() {
+        return mTraversalCount;
+    }
+
+    void reset() {
+        mMeasureCount = 0;
+        mLayoutCount = 0;
+        mRequestLayoutCount = 0;
+        mRequestLayoutDuringDrawCount = 0;
+        mTraversalCount = 0;
+    }
+
+    void onMeasure() {
+        mMeasureCount++;
+    }
+
+    void onLayout() {
+        mLayoutCount++;
+    }
+
+    void onRequestLayout(boolean duringDraw) {
+        mRequestLayoutCount++;
+        if (duringDraw) {
+            mRequestLayoutDuringDrawCount++;
+        }
+    }
+
+    void onTraversal() {
+        mTraversalCount++;
+    }
+
+    @Override
+    public String toString() {
+        return "measure " + mMeasureCount
+                + " | layout " + mLayoutCount
+                + " | requestLayout " + mRequestLayoutCount + " (" + mRequestLayoutDuringDrawCount + " in draw)"
+                + " | traversals " + mTraversalCount;
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.gfranks.expandable.view;
+
+import java.util.ArrayList;
+
+/**
+ * AnimationClock that only advances when told to, so every frame of a transition (and each height and
+ * onHeightOffsetChanged value it produces) can be asserted on exactly, headless on the JVM.
+ */
+public class ManualAnimationClock implements AnimationClock {
+
+    public static final long DEFAULT_FRAME_INTERVAL_MS = 16;
+
+    private static final FrameCallback NO_OP = new FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeMillis) {
+        }
+    };
+
+    private final long mFrameIntervalMillis;
+    private long mTimeMillis;
+    private float mDurationScale = 1f;
+    private ArrayList<FrameCallback> mCallbacks = new ArrayList<FrameCallback>();
+    private ArrayList<FrameCallback> mRunningCallbacks = new ArrayList<FrameCallback>();
+
+    public ManualAnimationClock() {
+        this(DEFAULT_FRAME_INTERVAL_MS);
+    }
+
+    /**
+     * @param frameIntervalMillis time advanced by each call to {@link #advanceFrame()}
+     */
+    public ManualAnimationClock(long frameIntervalMillis) {
+        mFrameIntervalMillis = frameIntervalMillis;
+    }
+
+    /**
+     * @return the time of the last frame
+     */
+    public long getTimeMillis() {
+        return mTimeMillis;
+    }
+
+    public long getFrameIntervalMillis() {
+        return mFrameIntervalMillis;
+    }
+
+    /**
+     * @param durationScale multiplier applied to the duration of animations started after this call
+     */
+    public void setDurationScale(float durationScale) {
+        mDurationScale = durationScale;
+    }
+
+    @Override
+    public float getDurationScale() {
+        return mDurationScale;
+    }
+
+    /**
+     * @return number of callbacks that will run on the next frame
+     */
+    public int getPendingCallbackCount() {
+        return mCallbacks.size();
+    }
+
+    /**
+     * Advances time by one frame interval and runs the callbacks posted before this frame. Callbacks posted while
+     * running run on the next frame
+     */
+    public void advanceFrame() {
+        mTimeMillis += mFrameIntervalMillis;
+        ArrayList<FrameCallback> callbacks = mCallbacks;
+        mCallbacks = mRunningCallbacks;
+        mRunningCallbacks = callbacks;
+        for (int i = 0; i < callbacks.size(); i++) {
+            callbacks.get(i).doFrame(mTimeMillis);
+        }
+        callbacks.clear();
+    }
+
+    /**
+     * @param frameCount number of frames to advance
+     */
+    public void advanceFrames(int frameCount) {
+        for (int i = 0; i < frameCount; i++) {
+            advanceFrame();
+        }
+    }
+
+    /**
+     * Advances frames until no callbacks are pending, e.g. to run every started animation to completion
+     *
+     * @param maxFrameCount maximum number of frames to advance, guarding against animations that never finish
+     * @return number of frames advanced
+     */
+    public int advanceUntilIdle(int maxFrameCount) {
+        int frameCount = 0;
+        while (!mCallbacks.isEmpty() && frameCount < maxFrameCount) {
+            advanceFrame();
+            frameCount++;
+        }
+        return frameCount;
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        if (!mCallbacks.contains(callback)) {
+            mCallbacks.add(callback);
+        }
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        mCallbacks.remove(callback);
+        // a callback removed by another callback of the same frame does not run
+        int index = mRunningCallbacks.indexOf(callback);
+        if (index >= 0) {
+            mRunningCallbacks.set(index, NO_OP);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.gfranks.expandable.view;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+import android.view.Display;
+import android.view.WindowManager;
+
+/**
+ * Adapts the duration of expand/collapse transitions to how well the device is keeping up. Transitions are shortened
+ * when frames have recently been dropped during transitions, and become a single frame snap when many frames are being
+ * dropped, when many views are toggling at once or while the device is in power save mode. The system animator
+ * duration scale is applied on top by the {@link AnimationClock}.
+ * <p/>
+ * Each snapped transition counts as a frame delivered on time, so once frames stop being dropped transitions recover
+ * after a few snaps rather than snapping for the rest of the process.
+ * <p/>
+ * Snapped transitions report the same listener callbacks, in the same order, as animated ones. A policy is shared by
+ * every view it is set on so concurrent transitions and frame drops are observed together; it must only be used
+ * from the main thread.
+ *
+ * @see ExpandableView#setMotionPolicy(MotionPolicy)
+ */
+public class MotionPolicy {
+
+    /**
+     * Number of transitions that may run at once, further transitions snap
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_TRANSITIONS = 3;
+    /**
+     * Share of frames dropped (smoothed over recent transition frames) above which transitions are halved, and snap
+     */
+    private static final float SHORTEN_DROPPED_FRAME_RATIO = 0.2f;
+    private static final float SNAP_DROPPED_FRAME_RATIO = 0.5f;
+    /**
+     * Weight of each new frame interval in the smoothed dropped frame ratio
+     */
+    private static final float SMOOTHING = 0.2f;
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private static MotionPolicy sInstance;
+
+    private final PowerManager mPowerManager;
+    private final float mFrameIntervalMillis;
+    private int mMaxConcurrentTransitions = DEFAULT_MAX_CONCURRENT_TRANSITIONS;
+    private int mRunningTransitions;
+    private long mLastFrameTimeMillis = -1;
+    private float mDroppedFrameRatio;
+
+    /**
+     * @param context Context used to read the display refresh rate and power save mode
+     * @return the instance shared by views using ev_adaptiveMotion
+     */
+    public static MotionPolicy getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new MotionPolicy(context);
+        }
+        return sInstance;
+    }
+
+    public MotionPolicy(Context context) {
+        Context appContext = context.getApplicationContext();
+        mPowerManager = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+        WindowManager windowManager = (WindowManager) appContext.getSystemService(Context.WINDOW_SERVICE);
+        Display display = windowManager != null ? windowManager.getDefaultDisplay() : null;
+        float refreshRate = display != null && display.getRefreshRate() > 0 ? display.getRefreshRate() : DEFAULT_REFRESH_RATE;
+        mFrameIntervalMillis = 1000f / refreshRate;
+    }
+
+    /**
+     * @param maxConcurrentTransitions number of transitions that may run at once before further transitions snap
+     */
+    public void setMaxConcurrentTransitions(int maxConcurrentTransitions) {
+        mMaxConcurrentTransitions = maxConcurrentTransitions;
+    }
+
+    public int getMaxConcurrentTransitions() {
+        return mMaxConcurrentTransitions;
+    }
+
+    /**
+     * @return smoothed share of frames dropped during recent transitions, between 0 and 1
+     */
+    public float getDroppedFrameRatio() {
+        return mDroppedFrameRatio;
+    }
+
+    /**
+     * @return number of transitions currently running
+     */
+    public int getRunningTransitionCount() {
+        return mRunningTransitions;
+    }
+
+    /**
+     * Called when a transition starts, which must be followed by {@link #onTransitionEnd()}
+     *
+     * @param duration the configured duration of the transition
+     * @return the duration the transition should run for, 0 to snap
+     */
+    public long onTransitionStart(long duration) {
+        mRunningTransitions++;
+        if (mRunningTransitions > mMaxConcurrentTransitions || isPowerSaveMode()
+                || mDroppedFrameRatio > SNAP_DROPPED_FRAME_RATIO) {
+            // a snap drops no frames and reports none, count it as a frame on time so motion can recover
+            mDroppedFrameRatio -= mDroppedFrameRatio * SMOOTHING;
+            return 0;
+        } else if (mDroppedFrameRatio > SHORTEN_DROPPED_FRAME_RATIO) {
+            return duration / 2;
+        }
+        return duration;
+    }
+
+    /**
+     * Called for every frame of a running transition. Concurrent transitions report the same frame time, which is
+     * only counted once
+     *
+     * @param frameTimeMillis time of the frame
+     */
+    public void onTransitionFrame(long frameTimeMillis) {
+        if (mLastFrameTimeMillis >= 0 && frameTimeMillis > mLastFrameTimeMillis) {
+            int elapsedFrames = Math.max(1, Math.round((frameTimeMillis - mLastFrameTimeMillis) / mFrameIntervalMillis));
+            float droppedRatio = (elapsedFrames - 1) / (float) elapsedFrames;
+            mDroppedFrameRatio += (droppedRatio - mDroppedFrameRatio) * SMOOTHING;
+        }
+        mLastFrameTimeMillis = Math.max(mLastFrameTimeMillis, frameTimeMillis);
+    }
+
+    public void onTransitionEnd() {
+        mRunningTransitions = Math.max(0, mRunningTransitions - 1);
+        if (mRunningTransitions == 0) {
+            // time between transitions is idle, not dropped frames
+            mLastFrameTimeMillis = -1;
+        }
+    }
+
+    protected boolean isPowerSaveMode() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && isPowerSaveModeLollipop();
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private boolean isPowerSaveModeLollipop() {
+        return mPowerManager != null && mPowerManager.isPowerSaveMode();
+    }
+}
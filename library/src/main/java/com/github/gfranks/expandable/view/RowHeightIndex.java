@@ -0,0 +1,195 @@
+package com.github.gfranks.expandable.view;
+
+import java.util.Arrays;
+
+/**
+ * Prefix sums of row heights for a list whose rows have a collapsed height and, when expanded, additional content
+ * height. Offsets of rows and the row at an offset are found in O(log n) without measuring any row, and a row's
+ * heights or expanded state are updated in O(log n).
+ * <p/>
+ * Rows whose collapsed height has not been recorded yet are estimated at the average recorded collapsed height. Two
+ * Fenwick (binary indexed) trees hold the recorded heights and the number of recorded rows, so the estimate may change
+ * as rows are recorded without touching the rows that rely on it.
+ * <p/>
+ * Unit tested by RowHeightIndexTest against summing every row, the same baseline RowHeightIndexBenchmark uses.
+ */
+public class RowHeightIndex {
+
+    private static final int UNKNOWN = -1;
+
+    private final int mRowCount;
+    private final int mDefaultRowHeight;
+    private final int[] mCollapsedHeights;
+    private final int[] mExpandedExtraHeights;
+    private final boolean[] mExpanded;
+    /**
+     * Fenwick tree of each row's recorded height, 0 for rows without a recorded collapsed height (plus their
+     * expanded extra height, if it is known and the row is expanded)
+     */
+    private final long[] mHeightTree;
+    /**
+     * Fenwick tree of 1 for each row with a recorded collapsed height
+     */
+    private final int[] mRecordedTree;
+    private long mRecordedCollapsedHeight;
+    private int mRecordedCount;
+
+    /**
+     * @param rowCount         number of rows, every row starts collapsed and without recorded heights
+     * @param defaultRowHeight estimated height of a collapsed row until any row is recorded
+     */
+    public RowHeightIndex(int rowCount, int defaultRowHeight) {
+        mRowCount = rowCount;
+        mDefaultRowHeight = defaultRowHeight;
+        mCollapsedHeights = new int[rowCount];
+        mExpandedExtraHeights = new int[rowCount];
+        mExpanded = new boolean[rowCount];
+        mHeightTree = new long[rowCount + 1];
+        mRecordedTree = new int[rowCount + 1];
+        Arrays.fill(mCollapsedHeights, UNKNOWN);
+        Arrays.fill(mExpandedExtraHeights, UNKNOWN);
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * @return the height used for rows whose collapsed height has not been recorded
+     */
+    public int getEstimatedRowHeight() {
+        return mRecordedCount > 0 ? (int) (mRecordedCollapsedHeight / mRecordedCount) : mDefaultRowHeight;
+    }
+
+    /**
+     * @param row row index
+     * @return boolean determining if the row is indexed as expanded
+     */
+    public boolean isExpanded(int row) {
+        return mExpanded[row];
+    }
+
+    /**
+     * @param row      row index
+     * @param expanded boolean determining if the row's expanded extra height should be included in its height
+     */
+    public void setExpanded(int row, boolean expanded) {
+        if (mExpanded[row] == expanded) {
+            return;
+        }
+
+        final int extraHeight = Math.max(0, mExpandedExtraHeights[row]);
+        mExpanded[row] = expanded;
+        addHeight(row, expanded ? extraHeight : -extraHeight);
+    }
+
+    /**
+     * @param row             row index
+     * @param collapsedHeight height of the row while collapsed
+     */
+    public void setCollapsedHeight(int row, int collapsedHeight) {
+        final int previousHeight = mCollapsedHeights[row];
+        if (previousHeight == collapsedHeight) {
+            return;
+        }
+
+        mCollapsedHeights[row] = collapsedHeight;
+        if (previousHeight == UNKNOWN) {
+            mRecordedCount++;
+            mRecordedCollapsedHeight += collapsedHeight;
+            for (int i = row + 1; i <= mRowCount; i += i & -i) {
+                mRecordedTree[i]++;
+            }
+            addHeight(row, collapsedHeight);
+        } else {
+            mRecordedCollapsedHeight += collapsedHeight - previousHeight;
+            addHeight(row, collapsedHeight - previousHeight);
+        }
+    }
+
+    /**
+     * @param row         row index
+     * @param extraHeight height the row grows by when expanded
+     */
+    public void setExpandedExtraHeight(int row, int extraHeight) {
+        final int previousHeight = Math.max(0, mExpandedExtraHeights[row]);
+        mExpandedExtraHeights[row] = extraHeight;
+        if (mExpanded[row]) {
+            addHeight(row, extraHeight - previousHeight);
+        }
+    }
+
+    /**
+     * @param row row index
+     * @return the current height of the row, estimated if its collapsed height has not been recorded
+     */
+    public int getRowHeight(int row) {
+        final int collapsedHeight = mCollapsedHeights[row] != UNKNOWN ? mCollapsedHeights[row] : getEstimatedRowHeight();
+        return collapsedHeight + (mExpanded[row] ? Math.max(0, mExpandedExtraHeights[row]) : 0);
+    }
+
+    /**
+     * @param row row index, may be the row count for the total height
+     * @return the sum of the heights of every row before the row
+     */
+    public long getOffset(int row) {
+        long height = 0;
+        int recorded = 0;
+        for (int i = row; i > 0; i -= i & -i) {
+            height += mHeightTree[i];
+            recorded += mRecordedTree[i];
+        }
+        return height + (long) (row - recorded) * getEstimatedRowHeight();
+    }
+
+    /**
+     * @return the sum of the heights of every row
+     */
+    public long getTotalHeight() {
+        return getOffset(mRowCount);
+    }
+
+    /**
+     * @param offset distance from the top of the first row
+     * @return the row covering the offset, clamped to the first and last rows. -1 if there are no rows
+     */
+    public int getRowAtOffset(long offset) {
+        if (mRowCount == 0) {
+            return -1;
+        }
+
+        // descend both trees together, the estimated sum is monotonic as heights are never negative
+        final int estimatedRowHeight = getEstimatedRowHeight();
+        int row = 0;
+        long height = 0;
+        int recorded = 0;
+        for (int step = Integer.highestOneBit(mRowCount); step > 0; step >>= 1) {
+            final int next = row + step;
+            if (next > mRowCount) {
+                continue;
+            }
+
+            final long nextHeight = height + mHeightTree[next];
+            final int nextRecorded = recorded + mRecordedTree[next];
+            if (nextHeight + (long) (next - nextRecorded) * estimatedRowHeight <= offset) {
+                row = next;
+                height = nextHeight;
+                recorded = nextRecorded;
+            }
+        }
+        return Math.min(row, mRowCount - 1);
+    }
+
+    private void addHeight(int row, long delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        for (int i = row + 1; i <= mRowCount; i += i & -i) {
+            mHeightTree[i] += delta;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.gfranks.expandable.view;
+
+import android.app.Activity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ContentLoadingTest {
+
+    private static final int EMPTY_CONTENT_HEIGHT = 40;
+    private static final int PLACEHOLDER_HEIGHT = 300;
+    private static final int LOADED_CONTENT_HEIGHT = 600;
+
+    private Activity mActivity;
+    private FrameLayout mRoot;
+    private ManualAnimationClock mClock;
+
+    @Before
+    public void setUp() {
+        mActivity = ExpandableViewFixture.setUpActivity();
+        mRoot = ExpandableViewFixture.setUpRoot(mActivity);
+        mClock = new ManualAnimationClock();
+    }
+
+    @Test
+    public void loadingContentExpandsToPlaceholderThenCrossFades() {
+        ExpandableView view = addExpandableView();
+        view.setContentLoading(true);
+
+        view.expandContent();
+        mClock.advanceUntilIdle(100);
+        FrameClock.advanceFrames(2);
+
+        assertTrue(view.isExpanded());
+        assertEquals(PLACEHOLDER_HEIGHT, view.getContentView().getLayoutParams().height);
+        assertEquals(0f, view.getContentView().getAlpha(), 0f);
+
+        view.getContentView().setMinimumHeight(LOADED_CONTENT_HEIGHT);
+        view.setContentLoading(false);
+        // the first frame is the start of the cross-fade
+        mClock.advanceFrame();
+        mClock.advanceFrame();
+        float alpha = view.getContentView().getAlpha();
+        assertTrue(alpha > 0f && alpha < 1f);
+
+        mClock.advanceUntilIdle(100);
+        assertEquals(LOADED_CONTENT_HEIGHT, view.getContentView().getLayoutParams().height);
+        assertEquals(1f, view.getContentView().getAlpha(), 0f);
+    }
+
+    @Test
+    public void loadingStartedFromWillExpandUsesPlaceholderHeight() {
+        ExpandableView view = addExpandableView();
+        view.setExpandableViewListener(new ExpandableViewFixture.ExpandableViewListenerAdapter() {
+            @Override
+            public void willExpand(ExpandableView expandableView) {
+                expandableView.setContentLoading(true);
+            }
+        });
+
+        view.expandContent();
+        mClock.advanceUntilIdle(100);
+
+        assertEquals(PLACEHOLDER_HEIGHT, view.getContentView().getLayoutParams().height);
+        assertTrue(view.isContentLoading());
+    }
+
+    @Test
+    public void loadingStartedFromWillExpandDoesNotCacheEmptyHeight() {
+        ExpandableView view = addExpandableView();
+        view.setExpandableViewListener(new ExpandableViewFixture.ExpandableViewListenerAdapter() {
+            @Override
+            public void willExpand(ExpandableView expandableView) {
+                expandableView.setContentLoading(true);
+            }
+        });
+        view.expandContent();
+        mClock.advanceUntilIdle(100);
+        FrameClock.advanceFrames(2);
+        view.collapseContent();
+        mClock.advanceUntilIdle(100);
+        FrameClock.advanceFrames(2);
+
+        view.expandContent();
+        mClock.advanceUntilIdle(100);
+
+        assertEquals(PLACEHOLDER_HEIGHT, view.getContentView().getLayoutParams().height);
+    }
+
+    @Test
+    public void loadingContentPrefersLastExpandedHeight() {
+        ExpandableView view = addExpandableView();
+        view.getContentView().setMinimumHeight(LOADED_CONTENT_HEIGHT);
+        view.expandContent();
+        mClock.advanceUntilIdle(100);
+        FrameClock.advanceFrames(2);
+        view.collapseContent();
+        mClock.advanceUntilIdle(100);
+        FrameClock.advanceFrames(2);
+
+        view.getContentView().setMinimumHeight(EMPTY_CONTENT_HEIGHT);
+        view.setContentLoading(true);
+        view.expandContent();
+        mClock.advanceUntilIdle(100);
+
+        assertEquals(LOADED_CONTENT_HEIGHT, view.getContentView().getLayoutParams().height);
+    }
+
+    @Test
+    public void loadingContentPrefersRecentlyUsedWidths() {
+        ExpandableView view = addExpandableView();
+        expandAndCollapseAtWidth(view, 200, 100);
+        expandAndCollapseAtWidth(view, 300, 200);
+        expandAndCollapseAtWidth(view, 200, 100);
+        // evicts 300, the least recently used width, rather than the narrowest
+        expandAndCollapseAtWidth(view, 400, 300);
+
+        setWidth(view, 200);
+        view.setContentLoading(true);
+        view.expandContent();
+        mClock.advanceUntilIdle(100);
+
+        assertEquals(100, view.getContentView().getLayoutParams().height);
+    }
+
+    @Test
+    public void loadingFinishedWhileCollapsedRestoresContent() {
+        ExpandableView view = addExpandableView();
+        view.setContentLoading(true);
+        assertEquals(0f, view.getContentView().getAlpha(), 0f);
+
+        view.setContentLoading(false);
+
+        assertFalse(view.isExpanded());
+        assertEquals(1f, view.getContentView().getAlpha(), 0f);
+    }
+
+    private void expandAndCollapseAtWidth(ExpandableView view, int width, int contentHeight) {
+        setWidth(view, width);
+        view.getContentView().setMinimumHeight(contentHeight);
+        view.expandContent();
+        mClock.advanceUntilIdle(100);
+        FrameClock.advanceFrames(2);
+        view.collapseContent();
+        mClock.advanceUntilIdle(100);
+        FrameClock.advanceFrames(2);
+    }
+
+    private void setWidth(ExpandableView view, int width) {
+        view.getLayoutParams().width = width;
+        view.requestLayout();
+        FrameClock.advanceFrames(2);
+    }
+
+    private ExpandableView addExpandableView() {
+        ExpandableView expandableView = ExpandableViewFixture.createExpandableView(mActivity, new View(mActivity),
+                EMPTY_CONTENT_HEIGHT);
+        expandableView.setAnimationClock(mClock);
+        expandableView.setPlaceholderHeight(PLACEHOLDER_HEIGHT);
+        ExpandableViewFixture.addToRoot(mRoot, expandableView);
+        return expandableView;
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.github.gfranks.expandable.view;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.HeaderViewListAdapter;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ExpandableListViewPerformanceTest {
+
+    private static final int ROW_COUNT = 1000;
+    private static final long ANIMATION_DURATION = 160;
+    private static final int CONTENT_HEIGHT = 300;
+    /**
+     * The list is laid out once per animation frame plus the explicit measure and final layout
+     */
+    private static final int PASS_OVERHEAD = 2;
+
+    private Activity mActivity;
+    private ExpandableListView mListView;
+    private Canvas mCanvas;
+
+    @Before
+    public void setUp() {
+        mActivity = ExpandableViewFixture.setUpActivity();
+
+        mListView = new ExpandableListView(mActivity);
+        mListView.setAdapter(new RowAdapter());
+        mActivity.setContentView(mListView, new ViewGroup.LayoutParams(480, 800));
+        FrameClock.advanceFrames(2);
+
+        mCanvas = new Canvas(Bitmap.createBitmap(480, 800, Bitmap.Config.ARGB_8888));
+        mListView.setLayoutPassDebugEnabled(true);
+    }
+
+    @Test
+    public void scrollingDoesNotRequestLayoutDuringDraw() {
+        ExpandableView first = rowAt(0);
+        first.getHeaderView().performClick();
+        FrameClock.advanceFrames(FrameClock.framesFor(ANIMATION_DURATION));
+
+        for (int i = 0; i < 50; i++) {
+            mListView.scrollListBy(120);
+            FrameClock.advanceFrame();
+            mListView.draw(mCanvas);
+        }
+
+        assertEquals(0, mListView.getLayoutPassStats().getRequestLayoutDuringDrawCount());
+    }
+
+    @Test
+    public void toggleStaysWithinLayoutPassBudget() {
+        int frames = FrameClock.framesFor(ANIMATION_DURATION);
+        ExpandableView first = rowAt(0);
+
+        first.getHeaderView().performClick();
+        FrameClock.advanceFrames(frames);
+
+        assertTrue(first.isExpanded());
+        LayoutPassStats stats = mListView.getLayoutPassStats();
+        assertTrue("measure passes: " + stats, stats.getMeasureCount() <= frames + PASS_OVERHEAD);
+        assertTrue("layout passes: " + stats, stats.getLayoutCount() <= frames + PASS_OVERHEAD);
+        assertEquals("requestLayout during draw: " + stats, 0, stats.getRequestLayoutDuringDrawCount());
+    }
+
+    @Test
+    public void singleExpansionCollapsesPreviousRow() {
+        int frames = FrameClock.framesFor(ANIMATION_DURATION);
+        mListView.setKeepViewsExpanded(false);
+        ExpandableView first = rowAt(0);
+        ExpandableView second = rowAt(1);
+
+        first.getHeaderView().performClick();
+        FrameClock.advanceFrames(frames);
+        second.getHeaderView().performClick();
+        FrameClock.advanceFrames(frames);
+
+        assertFalse(first.isExpanded());
+        assertTrue(second.isExpanded());
+    }
+
+    @Test
+    public void recycledRowEndsItsTransition() {
+        ExpandableView first = rowAt(0);
+        first.getHeaderView().performClick();
+        FrameClock.advanceFrames(2);
+        assertTrue(first.isAnimating());
+
+        mListView.scrollListBy(mListView.getHeight());
+
+        assertFalse(first.isAnimating());
+    }
+
+    @Test
+    public void rowAnimatingWhenStateChangesCatchesUpWhenTransitionEnds() {
+        int frames = FrameClock.framesFor(ANIMATION_DURATION);
+        ManualAnimationClock modelClock = new ManualAnimationClock();
+        ExpansionStateModel model = new ExpansionStateModel(modelClock);
+        mListView.setExpansionStateModel(model);
+        ExpandableView first = rowAt(0);
+
+        first.getHeaderView().performClick();
+        FrameClock.advanceFrames(2);
+        assertTrue(first.isAnimating());
+        model.setExpanded(0, false);
+        modelClock.advanceFrame();
+        FrameClock.advanceFrames(2 * frames);
+
+        assertFalse(first.isAnimating());
+        assertFalse(first.isExpanded());
+    }
+
+    @Test
+    public void getAdapterReturnsAdapterThatWasSet() {
+        RowAdapter adapter = new RowAdapter();
+        mListView.setAdapter(adapter);
+
+        assertSame(adapter, mListView.getAdapter());
+    }
+
+    @Test
+    public void getAdapterWrapsAdapterThatWasSetWithHeaderViews() {
+        RowAdapter adapter = new RowAdapter();
+        mListView.addHeaderView(new View(mActivity));
+        mListView.setAdapter(adapter);
+
+        assertSame(adapter, ((HeaderViewListAdapter) mListView.getAdapter()).getWrappedAdapter());
+        assertEquals(1, ((HeaderViewListAdapter) mListView.getAdapter()).getHeadersCount());
+        assertEquals(adapter.getCount() + 1, mListView.getAdapter().getCount());
+    }
+
+    @Test
+    public void textFilterIgnoresAdapterThatIsNotFilterable() {
+        mListView.setAdapter(new RowAdapter());
+        mListView.setTextFilterEnabled(true);
+
+        // AbsListView filters the adapter it binds if it is Filterable, and throws if it has no filter
+        mListView.onTextChanged("Row", 0, 0, 3);
+
+        assertEquals(ROW_COUNT, mListView.getCount());
+    }
+
+    private ExpandableView rowAt(int index) {
+        return (ExpandableView) mListView.getChildAt(index);
+    }
+
+    private class RowAdapter extends BaseAdapter {
+
+        @Override
+        public int getCount() {
+            return ROW_COUNT;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return position;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            ExpandableView expandableView = (ExpandableView) convertView;
+            if (expandableView == null) {
+                expandableView = ExpandableViewFixture.createExpandableView(mActivity, new TextView(mActivity),
+                        CONTENT_HEIGHT);
+                expandableView.setAnimationDuration(ANIMATION_DURATION);
+            }
+            ((TextView) expandableView.getHeaderView()).setText("Row " + position);
+            return expandableView;
+        }
+    }
+}
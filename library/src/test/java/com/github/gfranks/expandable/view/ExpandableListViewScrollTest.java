@@ -0,0 +1,116 @@
+package com.github.gfranks.expandable.view;
+
+import android.app.Activity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ExpandableListViewScrollTest {
+
+    private static final int ROW_COUNT = 1000;
+    private static final long ANIMATION_DURATION = 160;
+    private static final int CONTENT_HEIGHT = 300;
+    /**
+     * Rows from TALL_ROW_POSITION on are taller than every row laid out before scrolling, so their heights are
+     * underestimated until they are laid out
+     */
+    private static final int TALL_ROW_POSITION = 100;
+    private static final int SHORT_HEADER_HEIGHT = 50;
+    private static final int TALL_HEADER_HEIGHT = 200;
+
+    private Activity mActivity;
+    private ExpandableListView mListView;
+
+    @Before
+    public void setUp() {
+        mActivity = ExpandableViewFixture.setUpActivity();
+
+        mListView = new ExpandableListView(mActivity);
+        mListView.setKeepViewsExpanded(true);
+        mListView.setAdapter(new RowAdapter());
+        mActivity.setContentView(mListView, new ViewGroup.LayoutParams(480, 800));
+        FrameClock.advanceFrames(2);
+    }
+
+    @Test
+    public void smoothScrollReachesPositionPastExpandedRows() {
+        ((ExpandableView) mListView.getChildAt(0)).getHeaderView().performClick();
+        ((ExpandableView) mListView.getChildAt(1)).getHeaderView().performClick();
+        FrameClock.advanceFrames(FrameClock.framesFor(ANIMATION_DURATION));
+        assertTrue(((ExpandableView) mListView.getChildAt(0)).isExpanded());
+
+        mListView.smoothScrollToPositionFromTop(150, 0);
+        FrameClock.advanceFrames(120);
+
+        assertEquals(150, mListView.getFirstVisiblePosition());
+        assertEquals(0, mListView.getChildAt(0).getTop());
+    }
+
+    @Test
+    public void smoothScrollKeepsNegativeOffset() {
+        mListView.smoothScrollToPositionFromTop(150, -20);
+        FrameClock.advanceFrames(120);
+
+        assertEquals(150, mListView.getFirstVisiblePosition());
+        assertEquals(-20, mListView.getChildAt(0).getTop());
+    }
+
+    @Test
+    public void scrollRangeFollowsContentThatGrowsAfterExpanding() {
+        ExpandableView row = (ExpandableView) mListView.getChildAt(0);
+        row.getHeaderView().performClick();
+        FrameClock.advanceFrames(FrameClock.framesFor(ANIMATION_DURATION));
+        final int expandedRange = mListView.computeVerticalScrollRange();
+
+        row.getContentView().setMinimumHeight(2 * CONTENT_HEIGHT);
+        row.setExpanded(true, false);
+        FrameClock.advanceFrames(2);
+
+        assertEquals(2 * CONTENT_HEIGHT, row.getContentView().getHeight());
+        assertEquals(expandedRange + CONTENT_HEIGHT, mListView.computeVerticalScrollRange());
+    }
+
+    private class RowAdapter extends BaseAdapter {
+
+        @Override
+        public int getCount() {
+            return ROW_COUNT;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return position;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            ExpandableView expandableView = (ExpandableView) convertView;
+            if (expandableView == null) {
+                expandableView = ExpandableViewFixture.createExpandableView(mActivity, new TextView(mActivity),
+                        CONTENT_HEIGHT);
+                expandableView.setAnimationDuration(ANIMATION_DURATION);
+            }
+            TextView header = (TextView) expandableView.getHeaderView();
+            header.setText("Row " + position);
+            header.setMinimumHeight(position < TALL_ROW_POSITION ? SHORT_HEADER_HEIGHT : TALL_HEADER_HEIGHT);
+            return expandableView;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.gfranks.expandable.view;
+
+import android.app.Activity;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ExpandableTextViewTest {
+
+    private static final long TEXT_LAYOUT_TIMEOUT_MS = 5000;
+    private static final int TEXT_PADDING = 20;
+
+    private Activity mActivity;
+    private FrameLayout mRoot;
+
+    @Before
+    public void setUp() {
+        mActivity = ExpandableViewFixture.setUpActivity();
+        mRoot = ExpandableViewFixture.setUpRoot(mActivity);
+    }
+
+    @Test
+    public void collapsedLinesShowOnceTextLayoutIsPrecomputed() throws InterruptedException {
+        ExpandableTextView view = addExpandableTextView();
+        assertEquals(View.GONE, view.getTextView().getVisibility());
+
+        awaitTextLayout(view);
+
+        assertTrue(view.getCollapsedContentHeight() > 0);
+        assertEquals(View.VISIBLE, view.getTextView().getVisibility());
+        assertEquals(view.getCollapsedContentHeight(), view.getTextView().getLayoutParams().height);
+    }
+
+    @Test
+    public void precomputedExpandedHeightIsRecorded() throws InterruptedException {
+        ExpandableTextView view = addExpandableTextView();
+        awaitTextLayout(view);
+
+        view.expandContent();
+
+        assertTrue(view.getExpandedContentHeight() >= view.getCollapsedContentHeight());
+        assertTrue(view.getExpandedContentHeight() > 0);
+    }
+
+    private ExpandableTextView addExpandableTextView() {
+        ExpandableTextView view = new ExpandableTextView(mActivity);
+        view.setAnimationClock(new ManualAnimationClock());
+        view.setHeaderView(new View(mActivity));
+        TextView textView = new TextView(mActivity);
+        // keeps the precomputed heights positive whatever the text metrics are
+        textView.setPadding(0, TEXT_PADDING, 0, TEXT_PADDING);
+        view.setContentView(textView);
+        view.setExpanded(false, false);
+        view.setText("The quick brown fox jumps over the lazy dog. The quick brown fox jumps over the lazy dog. "
+                + "The quick brown fox jumps over the lazy dog. The quick brown fox jumps over the lazy dog.");
+
+        ExpandableViewFixture.addToRoot(mRoot, view);
+        return view;
+    }
+
+    /**
+     * The text layout is built on a background thread and delivered through the main looper
+     */
+    private static void awaitTextLayout(ExpandableTextView view) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TEXT_LAYOUT_TIMEOUT_MS;
+        while (view.getCollapsedContentHeight() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            ShadowLooper.runUiThreadTasks();
+        }
+        FrameClock.advanceFrames(2);
+    }
+}
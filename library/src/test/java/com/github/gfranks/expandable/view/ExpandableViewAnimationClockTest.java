@@ -0,0 +1,123 @@
+package com.github.gfranks.expandable.view;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ExpandableViewAnimationClockTest {
+
+    private static final long ANIMATION_DURATION = 160;
+    private static final int CONTENT_HEIGHT = 600;
+
+    private ManualAnimationClock mClock;
+    private ExpandableView mExpandableView;
+    private List<Float> mOffsets;
+
+    @Before
+    public void setUp() {
+        Activity activity = ExpandableViewFixture.setUpActivity();
+        mClock = new ManualAnimationClock();
+        mOffsets = new ArrayList<Float>();
+        TextView header = new TextView(activity);
+        header.setText("header");
+        mExpandableView = ExpandableViewFixture.createExpandableView(activity, header, CONTENT_HEIGHT);
+        mExpandableView.setAnimationClock(mClock);
+        mExpandableView.setAnimationDuration(ANIMATION_DURATION);
+        mExpandableView.setExpandableViewListener(new RecordingListener());
+        ExpandableViewFixture.addToRoot(ExpandableViewFixture.setUpRoot(activity), mExpandableView);
+    }
+
+    @Test
+    public void expandHeightIsExactOnEveryFrame() {
+        AccelerateDecelerateInterpolator interpolator = new AccelerateDecelerateInterpolator();
+        mExpandableView.expandContent();
+        // the first frame only records the start time
+        mClock.advanceFrame();
+
+        int frame = 1;
+        while (mExpandableView.isAnimating()) {
+            mClock.advanceFrame();
+            float fraction = Math.min(1f, frame * mClock.getFrameIntervalMillis() / (float) ANIMATION_DURATION);
+            float interpolatedFraction = interpolator.getInterpolation(fraction);
+            int expectedHeight = (int) (CONTENT_HEIGHT * interpolatedFraction);
+            assertEquals("frame " + frame, expectedHeight, mExpandableView.getContentView().getLayoutParams().height);
+            // offsets are interpolated, as they were when reported by a ValueAnimator
+            assertEquals("frame " + frame, interpolatedFraction, mOffsets.get(mOffsets.size() - 1), 0.0001f);
+            frame++;
+        }
+
+        assertEquals(ANIMATION_DURATION / mClock.getFrameIntervalMillis(), frame - 1);
+        assertTrue(mExpandableView.isExpanded());
+        assertEquals(CONTENT_HEIGHT, mExpandableView.getContentView().getLayoutParams().height);
+    }
+
+    @Test
+    public void durationScaleStretchesTransition() {
+        mClock.setDurationScale(2f);
+        mExpandableView.expandContent();
+
+        int frames = mClock.advanceUntilIdle(1000);
+
+        // one frame to record the start time
+        assertEquals(2 * ANIMATION_DURATION / mClock.getFrameIntervalMillis() + 1, frames);
+        assertTrue(mExpandableView.isExpanded());
+    }
+
+    @Test
+    public void zeroDurationScaleSkipsToEnd() {
+        mClock.setDurationScale(0f);
+        mExpandableView.expandContent();
+
+        assertFalse(mExpandableView.isAnimating());
+        assertTrue(mExpandableView.isExpanded());
+        assertEquals(0, mClock.getPendingCallbackCount());
+        assertEquals(CONTENT_HEIGHT, mExpandableView.getContentView().getLayoutParams().height);
+    }
+
+    @Test
+    public void transitionsSharingClockAdvanceTogether() {
+        ExpandableView other = ExpandableViewFixture.createExpandableView(mExpandableView.getContext(), null,
+                CONTENT_HEIGHT);
+        other.setAnimationClock(mClock);
+        other.setAnimationDuration(ANIMATION_DURATION);
+        ExpandableViewFixture.addToRoot((ViewGroup) mExpandableView.getParent(), other);
+
+        mExpandableView.expandContent();
+        other.expandContent();
+        for (int i = 0; i < 4; i++) {
+            mClock.advanceFrame();
+            assertEquals(mExpandableView.getContentView().getLayoutParams().height,
+                    other.getContentView().getLayoutParams().height);
+        }
+
+        // nothing advances without the clock
+        int height = other.getContentView().getLayoutParams().height;
+        FrameClock.advanceFrames(4);
+        assertEquals(height, other.getContentView().getLayoutParams().height);
+        assertTrue(other.isAnimating());
+    }
+
+    private class RecordingListener extends ExpandableViewFixture.ExpandableViewListenerAdapter {
+
+        @Override
+        public void onHeightOffsetChanged(ExpandableView expandableView, float offset) {
+            mOffsets.add(offset);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.gfranks.expandable.view;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.robolectric.Robolectric;
+
+/**
+ * Setup shared by the Robolectric tests: a started activity whose main looper only advances through
+ * {@link FrameClock}, and collapsed ExpandableViews whose content is a plain View of a fixed height
+ */
+final class ExpandableViewFixture {
+
+    private ExpandableViewFixture() {
+    }
+
+    /**
+     * @return a started activity, with the main looper paused
+     */
+    static Activity setUpActivity() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameClock.pause();
+        return activity;
+    }
+
+    /**
+     * @return an empty FrameLayout set as the content view of the activity
+     */
+    static FrameLayout setUpRoot(Activity activity) {
+        FrameLayout root = new FrameLayout(activity);
+        activity.setContentView(root);
+        return root;
+    }
+
+    /**
+     * @return a View that measures to contentHeight, for use as the content of an ExpandableView
+     */
+    static View createContentView(Context context, int contentHeight) {
+        View content = new View(context);
+        content.setMinimumHeight(contentHeight);
+        return content;
+    }
+
+    /**
+     * @param header header view, may be null
+     * @return a collapsed ExpandableView whose content expands to contentHeight
+     */
+    static ExpandableView createExpandableView(Context context, View header, int contentHeight) {
+        ExpandableView expandableView = new ExpandableView(context);
+        if (header != null) {
+            expandableView.setHeaderView(header);
+        }
+        expandableView.setContentView(createContentView(context, contentHeight));
+        expandableView.setExpanded(false, false);
+        return expandableView;
+    }
+
+    /**
+     * Adds the view across the full width of the root and runs the frames needed to lay it out
+     */
+    static void addToRoot(ViewGroup root, View view) {
+        root.addView(view, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        FrameClock.advanceFrames(2);
+    }
+
+    /**
+     * ExpandableViewListener allowing every transition and ignoring every callback, to be overridden as needed
+     */
+    static class ExpandableViewListenerAdapter implements ExpandableView.ExpandableViewListener {
+
+        @Override
+        public boolean canExpand(ExpandableView expandableView) {
+            return true;
+        }
+
+        @Override
+        public boolean canCollapse(ExpandableView expandableView) {
+            return true;
+        }
+
+        @Override
+        public void willExpand(ExpandableView expandableView) {
+        }
+
+        @Override
+        public void willCollapse(ExpandableView expandableView) {
+        }
+
+        @Override
+        public void didExpand(ExpandableView expandableView) {
+        }
+
+        @Override
+        public void didCollapse(ExpandableView expandableView) {
+        }
+
+        @Override
+        public void onHeightOffsetChanged(ExpandableView expandableView, float offset) {
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.gfranks.expandable.view;
+
+import android.app.Activity;
+import android.os.Parcelable;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ExpandableViewLifecycleTest {
+
+    private static final long ANIMATION_DURATION = 160;
+    private static final int CONTENT_HEIGHT = 600;
+
+    private Activity mActivity;
+    private FrameLayout mRoot;
+
+    @Before
+    public void setUp() {
+        mActivity = ExpandableViewFixture.setUpActivity();
+        mRoot = ExpandableViewFixture.setUpRoot(mActivity);
+    }
+
+    @Test
+    public void detachMidExpandSnapsToExpanded() {
+        ExpandableView expandableView = addExpandableView();
+        expandableView.expandContent();
+        FrameClock.advanceFrames(2);
+        assertTrue(expandableView.isAnimating());
+
+        mRoot.removeView(expandableView);
+
+        assertFalse(expandableView.isAnimating());
+        assertTrue(expandableView.isExpanded());
+        assertEquals(CONTENT_HEIGHT, expandableView.getContentView().getLayoutParams().height);
+    }
+
+    @Test
+    public void detachMidCollapseSnapsToCollapsed() {
+        ExpandableView expandableView = addExpandableView();
+        expandableView.setExpanded(true, false);
+        FrameClock.advanceFrames(2);
+        expandableView.collapseContent();
+        FrameClock.advanceFrames(2);
+
+        mRoot.removeView(expandableView);
+
+        assertFalse(expandableView.isAnimating());
+        assertFalse(expandableView.isExpanded());
+        assertEquals(View.GONE, expandableView.getContentView().getVisibility());
+    }
+
+    @Test
+    public void detachMidCollapseDefersCallbacksAndRelease() {
+        ExpandableView expandableView = addExpandableView();
+        expandableView.setReleaseContentWhenCollapsed(true);
+        expandableView.setExpanded(true, false);
+        FrameClock.advanceFrames(2);
+        final List<String> callbacks = new ArrayList<String>();
+        expandableView.setExpandableViewListener(new ExpandableViewFixture.ExpandableViewListenerAdapter() {
+            @Override
+            public void didCollapse(ExpandableView expandableView) {
+                callbacks.add("didCollapse");
+            }
+        });
+        expandableView.collapseContent();
+        FrameClock.advanceFrames(2);
+        View content = expandableView.getContentView();
+
+        mRoot.removeView(expandableView);
+
+        assertFalse(expandableView.isExpanded());
+        assertTrue(callbacks.isEmpty());
+        assertSame(expandableView, content.getParent());
+
+        mRoot.addView(expandableView);
+
+        assertNull(content.getParent());
+    }
+
+    @Test
+    public void reattachedViewTogglesAgain() {
+        ExpandableView expandableView = addExpandableView();
+        expandableView.expandContent();
+        FrameClock.advanceFrames(2);
+        mRoot.removeView(expandableView);
+
+        mRoot.addView(expandableView);
+        FrameClock.advanceFrames(2);
+        expandableView.collapseContent();
+        FrameClock.advanceFrames(FrameClock.framesFor(ANIMATION_DURATION));
+
+        assertFalse(expandableView.isExpanded());
+    }
+
+    @Test
+    public void noReferencesRemainAfterDetach() {
+        ExpandableView expandableView = addExpandableView();
+        expandableView.expandContent();
+        FrameClock.advanceFrames(2);
+        WeakReference<ExpandableView> reference = new WeakReference<ExpandableView>(expandableView);
+
+        mRoot.removeView(expandableView);
+        expandableView = null;
+        // anything still running would be reached from the animation handler on the next frames
+        FrameClock.advanceFrames(FrameClock.framesFor(ANIMATION_DURATION));
+        for (int i = 0; i < 5 && reference.get() != null; i++) {
+            System.gc();
+        }
+
+        assertNull(reference.get());
+    }
+
+    @Test
+    public void restoredViewResumesInterruptedExpand() {
+        ExpandableView expandableView = addExpandableView();
+        expandableView.expandContent();
+        FrameClock.advanceFrames(FrameClock.framesFor(ANIMATION_DURATION) / 2);
+        final int savedHeight = expandableView.getContentView().getLayoutParams().height;
+        assertTrue(savedHeight > 0 && savedHeight < CONTENT_HEIGHT);
+        Parcelable state = expandableView.onSaveInstanceState();
+        mRoot.removeView(expandableView);
+
+        ExpandableView restored = createExpandableView();
+        restored.onRestoreInstanceState(state);
+        mRoot.addView(restored);
+        FrameClock.advanceFrame();
+
+        assertTrue(restored.isAnimating());
+        assertTrue(restored.getContentView().getLayoutParams().height >= savedHeight);
+        FrameClock.advanceFrames(FrameClock.framesFor(ANIMATION_DURATION));
+        assertTrue(restored.isExpanded());
+        assertEquals(CONTENT_HEIGHT, restored.getContentView().getLayoutParams().height);
+    }
+
+    @Test
+    public void restoredViewResumesInterruptedCollapse() {
+        ExpandableView expandableView = addExpandableView();
+        expandableView.setExpanded(true, false);
+        FrameClock.advanceFrames(2);
+        expandableView.collapseContent();
+        FrameClock.advanceFrames(FrameClock.framesFor(ANIMATION_DURATION) / 2);
+        final int savedHeight = expandableView.getContentView().getLayoutParams().height;
+        Parcelable state = expandableView.onSaveInstanceState();
+        mRoot.removeView(expandableView);
+
+        ExpandableView restored = createExpandableView();
+        restored.onRestoreInstanceState(state);
+        mRoot.addView(restored);
+        FrameClock.advanceFrame();
+
+        assertTrue(restored.isAnimating());
+        assertTrue(restored.getContentView().getLayoutParams().height <= savedHeight);
+        FrameClock.advanceFrames(FrameClock.framesFor(ANIMATION_DURATION));
+        assertFalse(restored.isExpanded());
+    }
+
+    private ExpandableView addExpandableView() {
+        ExpandableView expandableView = createExpandableView();
+        ExpandableViewFixture.addToRoot(mRoot, expandableView);
+        return expandableView;
+    }
+
+    private ExpandableView createExpandableView() {
+        ExpandableView expandableView = ExpandableViewFixture.createExpandableView(mActivity, new TextView(mActivity),
+                CONTENT_HEIGHT);
+        expandableView.setAnimationDuration(ANIMATION_DURATION);
+        return expandableView;
+    }
+}
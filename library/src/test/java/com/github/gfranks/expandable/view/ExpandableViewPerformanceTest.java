@@ -0,0 +1,94 @@
+package com.github.gfranks.expandable.view;
+
+import android.app.Activity;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ExpandableViewPerformanceTest {
+
+    private static final long ANIMATION_DURATION = 160;
+    private static final int CONTENT_HEIGHT = 600;
+    /**
+     * The explicit content measure made by expandContent() and the final layout after the last frame
+     */
+    private static final int PASS_OVERHEAD = 2;
+    /**
+     * Robolectric shadows allocate on every frame as well, so this only catches large per-frame regressions
+     */
+    private static final long ALLOCATION_BUDGET_PER_FRAME = 16 * 1024;
+
+    private ExpandableView mExpandableView;
+
+    @Before
+    public void setUp() {
+        Activity activity = ExpandableViewFixture.setUpActivity();
+        TextView header = new TextView(activity);
+        header.setText("header");
+        mExpandableView = ExpandableViewFixture.createExpandableView(activity, header, CONTENT_HEIGHT);
+        mExpandableView.setAnimationDuration(ANIMATION_DURATION);
+        ExpandableViewFixture.addToRoot(ExpandableViewFixture.setUpRoot(activity), mExpandableView);
+    }
+
+    @Test
+    public void expandStaysWithinLayoutPassBudget() {
+        mExpandableView.setLayoutPassDebugEnabled(true);
+        int frames = FrameClock.framesFor(ANIMATION_DURATION);
+
+        mExpandableView.expandContent();
+        FrameClock.advanceFrames(frames);
+
+        assertTrue(mExpandableView.isExpanded());
+        assertFalse(mExpandableView.isAnimating());
+        LayoutPassStats stats = mExpandableView.getLayoutPassStats();
+        assertTrue("measure passes: " + stats, stats.getMeasureCount() <= frames + PASS_OVERHEAD);
+        assertTrue("layout passes: " + stats, stats.getLayoutCount() <= frames + PASS_OVERHEAD);
+        assertEquals("requestLayout during draw: " + stats, 0, stats.getRequestLayoutDuringDrawCount());
+    }
+
+    @Test
+    public void collapseStaysWithinLayoutPassBudget() {
+        mExpandableView.setExpanded(true, false);
+        FrameClock.advanceFrames(2);
+        mExpandableView.setLayoutPassDebugEnabled(true);
+        int frames = FrameClock.framesFor(ANIMATION_DURATION);
+
+        mExpandableView.collapseContent();
+        FrameClock.advanceFrames(frames);
+
+        assertFalse(mExpandableView.isExpanded());
+        LayoutPassStats stats = mExpandableView.getLayoutPassStats();
+        assertTrue("measure passes: " + stats, stats.getMeasureCount() <= frames + PASS_OVERHEAD);
+        assertTrue("layout passes: " + stats, stats.getLayoutCount() <= frames + PASS_OVERHEAD);
+        assertEquals("requestLayout during draw: " + stats, 0, stats.getRequestLayoutDuringDrawCount());
+    }
+
+    @Test
+    public void animationFramesStayWithinAllocationBudget() {
+        assumeTrue(AllocationMeter.isSupported());
+        int frames = FrameClock.framesFor(ANIMATION_DURATION);
+
+        long idleStart = AllocationMeter.allocatedBytes();
+        FrameClock.advanceFrames(frames);
+        long idleBytes = AllocationMeter.allocatedBytes() - idleStart;
+
+        mExpandableView.expandContent();
+        long animationStart = AllocationMeter.allocatedBytes();
+        FrameClock.advanceFrames(frames);
+        long animationBytes = AllocationMeter.allocatedBytes() - animationStart;
+
+        long perFrame = (animationBytes - idleBytes) / frames;
+        assertTrue("allocated " + perFrame + " bytes per frame", perFrame <= ALLOCATION_BUDGET_PER_FRAME);
+    }
+}
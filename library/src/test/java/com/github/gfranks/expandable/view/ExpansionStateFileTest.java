@@ -0,0 +1,88 @@
+package com.github.gfranks.expandable.view;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpansionStateFileTest {
+
+    private static final int ROW_COUNT = 100000;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mFile;
+    private ExpansionStateFile mStateFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = new File(mTemporaryFolder.getRoot(), "expanded");
+        mStateFile = new ExpansionStateFile(mFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mStateFile.close();
+    }
+
+    @Test
+    public void changesArePersistedWithoutClosing() throws IOException {
+        for (int position = 0; position < ROW_COUNT; position += 3) {
+            mStateFile.add(position);
+        }
+        mStateFile.remove(3);
+
+        ExpansionStateFile reopened = new ExpansionStateFile(mFile);
+        try {
+            assertEquals(mStateFile.size(), reopened.size());
+            assertTrue(reopened.contains(ROW_COUNT - 1 - (ROW_COUNT - 1) % 3));
+            assertFalse(reopened.contains(3));
+            assertFalse(reopened.contains(4));
+            assertArrayEquals(mStateFile.toArray(), reopened.toArray());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void behavesLikeExpandedPositionSet() {
+        ExpandedPositionSet expected = new ExpandedPositionSet();
+        for (int position : new int[]{0, 63, 64, 5000, 5000, -1}) {
+            assertEquals(expected.add(position), mStateFile.add(position));
+        }
+        assertEquals(expected.remove(63), mStateFile.remove(63));
+        assertEquals(expected.remove(63), mStateFile.remove(63));
+
+        assertEquals(expected.size(), mStateFile.size());
+        assertEquals(expected.nextExpandedPosition(1), mStateFile.nextExpandedPosition(1));
+        assertArrayEquals(expected.toWords(), mStateFile.toWords());
+
+        mStateFile.clear();
+        assertTrue(mStateFile.isEmpty());
+        assertEquals(-1, mStateFile.nextExpandedPosition(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        File other = mTemporaryFolder.newFile();
+        FileOutputStream out = new FileOutputStream(other);
+        try {
+            out.write(new byte[24]);
+        } finally {
+            out.close();
+        }
+
+        new ExpansionStateFile(other);
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.gfranks.expandable.view;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ExpansionStateModelTest {
+
+    private static final int CHANGE_COUNT = 500;
+
+    private ManualAnimationClock mClock;
+    private ExpansionStateModel mModel;
+    private List<long[]> mNotifications;
+
+    @Before
+    public void setUp() {
+        FrameClock.pause();
+        mClock = new ManualAnimationClock();
+        mModel = new ExpansionStateModel(mClock);
+        mNotifications = new ArrayList<long[]>();
+        mModel.registerObserver(new ExpansionStateModel.Observer() {
+            @Override
+            public void onExpansionStateChanged(ExpansionStateModel model, long[] changedKeys) {
+                mNotifications.add(changedKeys);
+            }
+        });
+    }
+
+    @Test
+    public void changesInOneFrameAreCoalesced() {
+        for (int key = 0; key < CHANGE_COUNT; key++) {
+            mModel.setExpanded(key, true);
+        }
+        assertTrue(mNotifications.isEmpty());
+
+        mClock.advanceFrame();
+
+        assertEquals(1, mNotifications.size());
+        assertEquals(CHANGE_COUNT, mNotifications.get(0).length);
+        assertTrue(mModel.isExpanded(CHANGE_COUNT - 1));
+    }
+
+    @Test
+    public void changesFromWorkerThreadAreDeliveredOnMainThread() throws InterruptedException {
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int key = 0; key < CHANGE_COUNT; key++) {
+                    mModel.setExpanded(key, true);
+                }
+            }
+        });
+        worker.start();
+        worker.join();
+
+        // the frame callback is posted from the main looper
+        assertEquals(0, mClock.getPendingCallbackCount());
+        FrameClock.advanceFrame();
+        mClock.advanceFrame();
+
+        assertEquals(1, mNotifications.size());
+        assertEquals(CHANGE_COUNT, mNotifications.get(0).length);
+    }
+
+    @Test
+    public void unchangedStateIsNotReported() {
+        mModel.setExpanded(1, true);
+        mClock.advanceFrame();
+        mNotifications.clear();
+
+        mModel.setExpanded(1, true);
+        mModel.setExpanded(2, false);
+        mClock.advanceFrame();
+
+        assertTrue(mNotifications.isEmpty());
+    }
+
+    @Test
+    public void setExpandedKeysReportsOnlyDifferences() {
+        mModel.setExpandedKeys(new long[]{1, 2, 3});
+        mClock.advanceFrame();
+        mNotifications.clear();
+
+        mModel.setExpandedKeys(new long[]{2, 3, 4});
+        mClock.advanceFrame();
+
+        assertEquals(1, mNotifications.size());
+        assertEquals(2, mNotifications.get(0).length);
+        assertFalse(mModel.isExpanded(1));
+        assertTrue(mModel.isExpanded(4));
+    }
+}
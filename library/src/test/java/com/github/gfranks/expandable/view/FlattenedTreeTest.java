@@ -0,0 +1,146 @@
+package com.github.gfranks.expandable.view;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FlattenedTreeTest {
+
+    /**
+     * Two categories of two groups of two items:
+     * 0 (1 (2, 3), 4 (5, 6)), 7 (8 (9, 10), 11 (12, 13))
+     */
+    private static final int[] SUBTREE_SIZES = {6, 2, 0, 0, 2, 0, 0, 6, 2, 0, 0, 2, 0, 0};
+
+    @Test
+    public void parentsAndDepthsFollowPreOrder() {
+        FlattenedTree tree = new FlattenedTree(SUBTREE_SIZES);
+
+        assertEquals(-1, tree.getParent(0));
+        assertEquals(0, tree.getParent(4));
+        assertEquals(4, tree.getParent(6));
+        assertEquals(-1, tree.getParent(7));
+        assertEquals(11, tree.getParent(13));
+        assertEquals(0, tree.getDepth(7));
+        assertEquals(2, tree.getDepth(13));
+        assertEquals(SUBTREE_SIZES.length, tree.getVisibleCount());
+    }
+
+    @Test
+    public void collapsingHidesDescendants() {
+        FlattenedTree tree = new FlattenedTree(SUBTREE_SIZES);
+
+        assertEquals(2, tree.collapse(1));
+        assertEquals(6 - 2, tree.collapse(0));
+
+        assertEquals(8, tree.getVisibleCount());
+        assertFalse(tree.isVisible(2));
+        assertEquals(-1, tree.getPosition(4));
+        assertEquals(1, tree.getPosition(7));
+        assertEquals(7, tree.getNode(1));
+        assertEquals(0, tree.collapse(0));
+        assertEquals(0, tree.collapse(2));
+    }
+
+    @Test
+    public void nestedCollapseSurvivesExpandingAncestor() {
+        FlattenedTree tree = new FlattenedTree(SUBTREE_SIZES);
+        tree.collapse(0);
+        // hidden by node 0, so only node 0's adjustment changes
+        tree.collapse(4);
+        assertEquals(8, tree.getVisibleCount());
+
+        assertEquals(4, tree.expand(0));
+
+        assertTrue(tree.isCollapsed(4));
+        assertFalse(tree.isVisible(5));
+        assertEquals(5, tree.getPosition(7));
+        assertEquals(4, tree.getNode(4));
+        assertEquals(7, tree.getNode(5));
+        assertEquals(12, tree.getVisibleCount());
+    }
+
+    @Test
+    public void matchesNaiveFlatteningAfterRandomToggles() {
+        Random random = new Random(37);
+        for (int round = 0; round < 20; round++) {
+            int[] subtreeSizes = randomSubtreeSizes(random, 1 + random.nextInt(200));
+            FlattenedTree tree = new FlattenedTree(subtreeSizes);
+            boolean[] collapsed = new boolean[subtreeSizes.length];
+
+            for (int step = 0; step < 200; step++) {
+                int node = random.nextInt(subtreeSizes.length);
+                int visibleBefore = naiveFlattening(subtreeSizes, collapsed).size();
+                int changed;
+                if (random.nextBoolean()) {
+                    changed = tree.collapse(node);
+                    collapsed[node] = collapsed[node] || subtreeSizes[node] > 0;
+                } else {
+                    changed = tree.expand(node);
+                    collapsed[node] = false;
+                }
+
+                List<Integer> visible = naiveFlattening(subtreeSizes, collapsed);
+                if (!tree.isVisible(node)) {
+                    // a hidden node's rows are absorbed by its collapsed ancestor
+                    assertEquals(visibleBefore, visible.size());
+                } else {
+                    assertEquals(Math.abs(visible.size() - visibleBefore), changed);
+                }
+                assertMatches(visible, tree);
+            }
+        }
+    }
+
+    private static void assertMatches(List<Integer> visible, FlattenedTree tree) {
+        assertEquals(visible.size(), tree.getVisibleCount());
+        for (int position = 0; position < visible.size(); position++) {
+            assertEquals("position " + position, (int) visible.get(position), tree.getNode(position));
+        }
+        for (int node = 0; node < tree.getNodeCount(); node++) {
+            assertEquals("node " + node, visible.indexOf(node), tree.getPosition(node));
+        }
+    }
+
+    /**
+     * @return the visible nodes in row order, skipping the descendants of every collapsed node
+     */
+    private static List<Integer> naiveFlattening(int[] subtreeSizes, boolean[] collapsed) {
+        List<Integer> visible = new ArrayList<Integer>();
+        int node = 0;
+        while (node < subtreeSizes.length) {
+            visible.add(node);
+            node += collapsed[node] ? subtreeSizes[node] + 1 : 1;
+        }
+        return visible;
+    }
+
+    /**
+     * @return descendant counts, in pre-order, of a random forest of nodeCount nodes
+     */
+    private static int[] randomSubtreeSizes(Random random, int nodeCount) {
+        int[] parents = new int[nodeCount];
+        int[] path = new int[nodeCount];
+        int depth = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            // in pre-order a node's parent is on the path to the previous node
+            depth = random.nextInt(depth + 1);
+            parents[node] = depth > 0 ? path[depth - 1] : -1;
+            path[depth++] = node;
+        }
+
+        int[] subtreeSizes = new int[nodeCount];
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (parents[node] >= 0) {
+                subtreeSizes[parents[node]] += subtreeSizes[node] + 1;
+            }
+        }
+        return subtreeSizes;
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.gfranks.expandable.view;
+
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Steps the paused Robolectric main looper one display frame at a time so animations advance deterministically
+ */
+final class FrameClock {
+
+    static final long FRAME_INTERVAL_MS = 16;
+
+    private FrameClock() {
+    }
+
+    static void pause() {
+        ShadowLooper.pauseMainLooper();
+    }
+
+    static void advanceFrame() {
+        ShadowLooper.idleMainLooper(FRAME_INTERVAL_MS);
+    }
+
+    static void advanceFrames(int frameCount) {
+        for (int i = 0; i < frameCount; i++) {
+            advanceFrame();
+        }
+    }
+
+    /**
+     * @return number of frames needed to run an animation of the given duration to completion
+     */
+    static int framesFor(long durationMs) {
+        return (int) (durationMs / FRAME_INTERVAL_MS) + 2;
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.gfranks.expandable.view;
+
+import android.app.Activity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class MotionPolicyTest {
+
+    private static final long ANIMATION_DURATION = 160;
+    private static final int CONTENT_HEIGHT = 600;
+
+    private Activity mActivity;
+    private FrameLayout mRoot;
+    private ManualAnimationClock mClock;
+    private TestMotionPolicy mPolicy;
+
+    @Before
+    public void setUp() {
+        mActivity = ExpandableViewFixture.setUpActivity();
+        mRoot = ExpandableViewFixture.setUpRoot(mActivity);
+        mClock = new ManualAnimationClock();
+        mPolicy = new TestMotionPolicy(mActivity);
+    }
+
+    @Test
+    public void transitionsBeyondConcurrencyLimitSnap() {
+        List<ExpandableView> views = new ArrayList<ExpandableView>();
+        for (int i = 0; i <= MotionPolicy.DEFAULT_MAX_CONCURRENT_TRANSITIONS; i++) {
+            views.add(addExpandableView(null));
+        }
+
+        for (ExpandableView view : views) {
+            view.expandContent();
+        }
+
+        for (int i = 0; i < MotionPolicy.DEFAULT_MAX_CONCURRENT_TRANSITIONS; i++) {
+            assertTrue(views.get(i).isAnimating());
+        }
+        ExpandableView snapped = views.get(MotionPolicy.DEFAULT_MAX_CONCURRENT_TRANSITIONS);
+        assertFalse(snapped.isAnimating());
+        assertTrue(snapped.isExpanded());
+        assertEquals(CONTENT_HEIGHT, snapped.getContentView().getLayoutParams().height);
+
+        mClock.advanceUntilIdle(100);
+        assertEquals(0, mPolicy.getRunningTransitionCount());
+    }
+
+    @Test
+    public void droppedFramesSnapLaterTransitions() {
+        // every frame arrives four display frames after the last
+        mClock = new ManualAnimationClock(4 * ManualAnimationClock.DEFAULT_FRAME_INTERVAL_MS);
+        ExpandableView first = addExpandableView(null);
+        first.setAnimationDuration(20 * mClock.getFrameIntervalMillis());
+        first.expandContent();
+        mClock.advanceUntilIdle(100);
+        assertTrue(mPolicy.getDroppedFrameRatio() > 0.5f);
+
+        ExpandableView second = addExpandableView(null);
+        second.expandContent();
+
+        assertFalse(second.isAnimating());
+        assertTrue(second.isExpanded());
+    }
+
+    @Test
+    public void droppedFramesRecoverAfterSnaps() {
+        mClock = new ManualAnimationClock(4 * ManualAnimationClock.DEFAULT_FRAME_INTERVAL_MS);
+        ExpandableView first = addExpandableView(null);
+        first.setAnimationDuration(20 * mClock.getFrameIntervalMillis());
+        first.expandContent();
+        mClock.advanceUntilIdle(100);
+        assertTrue(mPolicy.getDroppedFrameRatio() > 0.5f);
+
+        boolean animated = false;
+        for (int i = 0; i < 10 && !animated; i++) {
+            ExpandableView view = addExpandableView(null);
+            view.expandContent();
+            animated = view.isAnimating();
+            mClock.advanceUntilIdle(100);
+        }
+
+        assertTrue(animated);
+    }
+
+    @Test
+    public void powerSaveModeSnaps() {
+        mPolicy.mPowerSaveMode = true;
+        ExpandableView view = addExpandableView(null);
+
+        view.expandContent();
+
+        assertFalse(view.isAnimating());
+        assertTrue(view.isExpanded());
+    }
+
+    @Test
+    public void snappedTransitionKeepsCallbackOrder() {
+        mPolicy.mPowerSaveMode = true;
+        List<String> callbacks = new ArrayList<String>();
+        ExpandableView view = addExpandableView(callbacks);
+
+        view.expandContent();
+        FrameClock.advanceFrames(2);
+        view.collapseContent();
+
+        assertEquals(Arrays.asList("canExpand", "willExpand", "offset 1.0", "didExpand",
+                "canCollapse", "willCollapse", "offset 1.0", "didCollapse"), callbacks);
+    }
+
+    private ExpandableView addExpandableView(final List<String> callbacks) {
+        ExpandableView expandableView = ExpandableViewFixture.createExpandableView(mActivity, new View(mActivity),
+                CONTENT_HEIGHT);
+        expandableView.setAnimationClock(mClock);
+        expandableView.setMotionPolicy(mPolicy);
+        expandableView.setAnimationDuration(ANIMATION_DURATION);
+        if (callbacks != null) {
+            expandableView.setExpandableViewListener(new ExpandableView.ExpandableViewListener() {
+                @Override
+                public boolean canExpand(ExpandableView expandableView) {
+                    callbacks.add("canExpand");
+                    return true;
+                }
+
+                @Override
+                public boolean canCollapse(ExpandableView expandableView) {
+                    callbacks.add("canCollapse");
+                    return true;
+                }
+
+                @Override
+                public void willExpand(ExpandableView expandableView) {
+                    callbacks.add("willExpand");
+                }
+
+                @Override
+                public void willCollapse(ExpandableView expandableView) {
+                    callbacks.add("willCollapse");
+                }
+
+                @Override
+                public void didExpand(ExpandableView expandableView) {
+                    callbacks.add("didExpand");
+                }
+
+                @Override
+                public void didCollapse(ExpandableView expandableView) {
+                    callbacks.add("didCollapse");
+                }
+
+                @Override
+                public void onHeightOffsetChanged(ExpandableView expandableView, float offset) {
+                    callbacks.add("offset " + offset);
+                }
+            });
+        }
+
+        ExpandableViewFixture.addToRoot(mRoot, expandableView);
+        return expandableView;
+    }
+
+    private static class TestMotionPolicy extends MotionPolicy {
+
+        boolean mPowerSaveMode;
+
+        TestMotionPolicy(Activity activity) {
+            super(activity);
+        }
+
+        @Override
+        protected boolean isPowerSaveMode() {
+            return mPowerSaveMode;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.gfranks.expandable.view;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RowHeightIndexTest {
+
+    private static final int ROW_COUNT = 1000;
+    private static final int DEFAULT_ROW_HEIGHT = 48;
+
+    @Test
+    public void unrecordedRowsUseDefaultHeight() {
+        RowHeightIndex index = new RowHeightIndex(ROW_COUNT, DEFAULT_ROW_HEIGHT);
+
+        assertEquals(DEFAULT_ROW_HEIGHT, index.getEstimatedRowHeight());
+        assertEquals(10L * DEFAULT_ROW_HEIGHT, index.getOffset(10));
+        assertEquals((long) ROW_COUNT * DEFAULT_ROW_HEIGHT, index.getTotalHeight());
+        assertEquals(10, index.getRowAtOffset(10 * DEFAULT_ROW_HEIGHT));
+        assertEquals(9, index.getRowAtOffset(10 * DEFAULT_ROW_HEIGHT - 1));
+    }
+
+    @Test
+    public void unrecordedRowsUseAverageRecordedHeight() {
+        RowHeightIndex index = new RowHeightIndex(ROW_COUNT, DEFAULT_ROW_HEIGHT);
+        index.setCollapsedHeight(0, 40);
+        index.setCollapsedHeight(1, 60);
+
+        assertEquals(50, index.getEstimatedRowHeight());
+        assertEquals(50, index.getRowHeight(2));
+        assertEquals(40 + 60 + 50, index.getOffset(3));
+
+        // re-recording a row replaces its height in the estimate
+        index.setCollapsedHeight(1, 80);
+        assertEquals(60, index.getEstimatedRowHeight());
+        assertEquals(40 + 80 + 60, index.getOffset(3));
+    }
+
+    @Test
+    public void expandedRowsIncludeExtraHeight() {
+        RowHeightIndex index = new RowHeightIndex(ROW_COUNT, DEFAULT_ROW_HEIGHT);
+        index.setExpandedExtraHeight(5, 300);
+        assertEquals(6L * DEFAULT_ROW_HEIGHT, index.getOffset(6));
+
+        index.setExpanded(5, true);
+        assertTrue(index.isExpanded(5));
+        assertEquals(DEFAULT_ROW_HEIGHT + 300, index.getRowHeight(5));
+        assertEquals(6L * DEFAULT_ROW_HEIGHT + 300, index.getOffset(6));
+        assertEquals(5, index.getRowAtOffset(5 * DEFAULT_ROW_HEIGHT + 200));
+
+        // an extra height recorded while expanded applies immediately
+        index.setExpandedExtraHeight(5, 100);
+        assertEquals(6L * DEFAULT_ROW_HEIGHT + 100, index.getOffset(6));
+
+        index.setExpanded(5, false);
+        assertFalse(index.isExpanded(5));
+        assertEquals(6L * DEFAULT_ROW_HEIGHT, index.getOffset(6));
+    }
+
+    @Test
+    public void rowAtOffsetIsClamped() {
+        RowHeightIndex index = new RowHeightIndex(ROW_COUNT, DEFAULT_ROW_HEIGHT);
+
+        assertEquals(0, index.getRowAtOffset(-100));
+        assertEquals(ROW_COUNT - 1, index.getRowAtOffset(Long.MAX_VALUE));
+        assertEquals(-1, new RowHeightIndex(0, DEFAULT_ROW_HEIGHT).getRowAtOffset(0));
+    }
+
+    @Test
+    public void matchesBruteForceSums() {
+        Random random = new Random(44);
+        RowHeightIndex index = new RowHeightIndex(ROW_COUNT, DEFAULT_ROW_HEIGHT);
+        int[] collapsedHeights = new int[ROW_COUNT];
+        int[] extraHeights = new int[ROW_COUNT];
+        boolean[] expanded = new boolean[ROW_COUNT];
+        for (int i = 0; i < 5000; i++) {
+            final int row = random.nextInt(ROW_COUNT);
+            switch (random.nextInt(3)) {
+                case 0:
+                    collapsedHeights[row] = 1 + random.nextInt(200);
+                    index.setCollapsedHeight(row, collapsedHeights[row]);
+                    break;
+                case 1:
+                    extraHeights[row] = random.nextInt(500);
+                    index.setExpandedExtraHeight(row, extraHeights[row]);
+                    break;
+                default:
+                    expanded[row] = !expanded[row];
+                    index.setExpanded(row, expanded[row]);
+                    break;
+            }
+        }
+
+        long recordedHeight = 0;
+        int recordedCount = 0;
+        for (int row = 0; row < ROW_COUNT; row++) {
+            if (collapsedHeights[row] > 0) {
+                recordedHeight += collapsedHeights[row];
+                recordedCount++;
+            }
+        }
+        final int estimate = recordedCount > 0 ? (int) (recordedHeight / recordedCount) : DEFAULT_ROW_HEIGHT;
+        assertEquals(estimate, index.getEstimatedRowHeight());
+
+        long offset = 0;
+        for (int row = 0; row < ROW_COUNT; row++) {
+            assertEquals("offset of row " + row, offset, index.getOffset(row));
+            final int height = (collapsedHeights[row] > 0 ? collapsedHeights[row] : estimate)
+                    + (expanded[row] ? extraHeights[row] : 0);
+            assertEquals("height of row " + row, height, index.getRowHeight(row));
+            if (height > 0) {
+                assertEquals("row at offset " + offset, row, index.getRowAtOffset(offset));
+                assertEquals("row at offset " + (offset + height - 1), row, index.getRowAtOffset(offset + height - 1));
+            }
+            offset += height;
+        }
+        assertEquals(offset, index.getTotalHeight());
+    }
+}